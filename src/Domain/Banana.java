@@ -12,6 +12,6 @@ public class Banana extends Fruit {
      * @param y the vertical position on the board
      */
     public Banana(int x, int y) {
-        super(x, y, "BANANA", 100);
+        super(x, y, BANANA, 100);
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package Domain;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Runs many games without a window, as fast as the processors allow.
+ * The games of a batch are split among the threads of a fork-join pool. Each game
+ * is built from the shared level template, runs on a TickClock and gets its own seed,
+ * so a game only depends on its index and the batch seed and can be replayed alone with play.
+ */
+public class BatchSimulator {
+    private static final int GAMES_PER_TASK = 8; // below this a task plays its games instead of splitting
+    
+    private final LevelTemplate template;
+    private final String flavor;
+    private final ForkJoinPool pool;
+    
+    /**
+     * Creates a simulator that runs on the common fork-join pool.
+     * @param template the level to play
+     * @param flavor the ice cream flavor of the player
+     */
+    public BatchSimulator(LevelTemplate template, String flavor) {
+        this(template, flavor, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a simulator that runs on a given pool.
+     * @param template the level to play
+     * @param flavor the ice cream flavor of the player
+     * @param pool the pool whose threads play the games
+     */
+    public BatchSimulator(LevelTemplate template, String flavor, ForkJoinPool pool) {
+        this.template = template;
+        this.flavor = flavor;
+        this.pool = pool;
+    }
+    
+    /**
+     * Plays a batch of games and waits until all of them finish.
+     * @param games the number of games
+     * @param batchSeed the seed the seeds of the games come from
+     * @param maxTicks the maximum number of updates of a game that doesn't finish before
+     * @param agent the agent that plays every game, shared by all the threads
+     * @param results receives the result of each game as soon as it finishes, from the thread
+     *                that played it, so it must be thread-safe; it can be null
+     * @return the totals of the batch
+     */
+    public BatchStatistics run(int games, long batchSeed, long maxTicks, GameAgent agent, Consumer<GameResult> results) {
+        BatchStatistics statistics = new BatchStatistics();
+        long start = System.nanoTime();
+        pool.invoke(new SimulationTask(0, games, batchSeed, maxTicks, agent, results, statistics));
+        statistics.setElapsedNanos(Math.max(1, System.nanoTime() - start));
+        return statistics;
+    }
+    
+    /**
+     * Plays one game of a batch on the calling thread.
+     * @param index the number of the game in the batch
+     * @param batchSeed the seed of the batch
+     * @param maxTicks the maximum number of updates
+     * @param agent the agent that plays the game
+     * @return the result of the game
+     */
+    public GameResult play(int index, long batchSeed, long maxTicks, GameAgent agent) {
+        long seed = seedOf(index, batchSeed);
+        Game game = new Game(template, flavor, 0, 0, seed);
+        game.setClock(new TickClock());
+        
+        long tick = 0;
+        while (tick < maxTicks && !game.isGameWon() && !game.isGameLost()) {
+            agent.act(game, tick);
+            game.update();
+            tick++;
+        }
+        return new GameResult(index, seed, game);
+    }
+    
+    /**
+     * Gets the seed of a game of a batch.
+     * @param index the number of the game in the batch
+     * @param batchSeed the seed of the batch
+     * @return the seed of the game
+     */
+    public static long seedOf(int index, long batchSeed) {
+        return GameRandom.mix(batchSeed + (index + 1) * 0x9E3779B97F4A7C15L);
+    }
+    
+    /**
+     * Task that plays a range of games of a batch, splitting it in halves while it is big.
+     */
+    private class SimulationTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final long batchSeed;
+        private final long maxTicks;
+        private final GameAgent agent;
+        private final Consumer<GameResult> results;
+        private final BatchStatistics statistics;
+        
+        SimulationTask(int from, int to, long batchSeed, long maxTicks, GameAgent agent,
+                       Consumer<GameResult> results, BatchStatistics statistics) {
+            this.from = from;
+            this.to = to;
+            this.batchSeed = batchSeed;
+            this.maxTicks = maxTicks;
+            this.agent = agent;
+            this.results = results;
+            this.statistics = statistics;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    GameResult result = play(i, batchSeed, maxTicks, agent);
+                    statistics.record(result);
+                    if (results != null) {
+                        results.accept(result);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SimulationTask(from, middle, batchSeed, maxTicks, agent, results, statistics),
+                      new SimulationTask(middle, to, batchSeed, maxTicks, agent, results, statistics));
+        }
+    }
+}
\ No newline at end of file
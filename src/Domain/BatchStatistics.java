@@ -0,0 +1,127 @@
+package Domain;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of a batch of simulated games.
+ * Games finishing on different threads add their result to striped counters,
+ * so recording a result doesn't make the threads wait for each other.
+ */
+public class BatchStatistics {
+    private final LongAdder games;
+    private final LongAdder wins;
+    private final LongAdder losses;
+    private final LongAdder ticks;
+    private final LongAdder score;
+    private final LongAdder fruits;
+    private volatile long elapsedNanos;
+    
+    /**
+     * Creates empty statistics.
+     */
+    public BatchStatistics() {
+        this.games = new LongAdder();
+        this.wins = new LongAdder();
+        this.losses = new LongAdder();
+        this.ticks = new LongAdder();
+        this.score = new LongAdder();
+        this.fruits = new LongAdder();
+    }
+    
+    /**
+     * Adds the result of a game, it can be called from any thread.
+     * @param result the result to add
+     */
+    public void record(GameResult result) {
+        games.increment();
+        if (result.isWon()) {
+            wins.increment();
+        }
+        if (result.isLost()) {
+            losses.increment();
+        }
+        ticks.add(result.getTicks());
+        score.add(result.getScore());
+        fruits.add(result.getFruitsCollected());
+    }
+    
+    /**
+     * Sets how long the batch took to run.
+     * @param elapsedNanos the running time in nanoseconds
+     */
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    /**
+     * Gets the number of games played.
+     * @return the number of games
+     */
+    public long getGames() {
+        return games.sum();
+    }
+    
+    /**
+     * Gets the number of games won.
+     * @return the number of wins
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+    
+    /**
+     * Gets the number of games lost.
+     * @return the number of losses
+     */
+    public long getLosses() {
+        return losses.sum();
+    }
+    
+    /**
+     * Gets the updates run by all the games.
+     * @return the total number of updates
+     */
+    public long getTicks() {
+        return ticks.sum();
+    }
+    
+    /**
+     * Gets the score of all the games added up.
+     * @return the total score
+     */
+    public long getTotalScore() {
+        return score.sum();
+    }
+    
+    /**
+     * Gets the fruits collected in all the games.
+     * @return the total fruits collected
+     */
+    public long getFruitsCollected() {
+        return fruits.sum();
+    }
+    
+    /**
+     * Gets how long the batch took to run.
+     * @return the running time in nanoseconds, 0 while it is running
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+    
+    /**
+     * Gets the number of games played per second of running time.
+     * @return the games per second, 0 while the batch is running
+     */
+    public double getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : getGames() * 1e9 / elapsedNanos;
+    }
+    
+    /**
+     * Gets the number of updates run per second of running time.
+     * @return the updates per second, 0 while the batch is running
+     */
+    public double getTicksPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTicks() * 1e9 / elapsedNanos;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,242 @@
+package Domain;
+
+import java.util.Arrays;
+
+/**
+ * Packed bit set used by the board to store one layer of cell flags (walls, ice, fires...).
+ * Cells are numbered row by row, so a 16x16 board fits in four longs per layer.
+ * Ray scans use bit-scan operations to jump straight to the first cell that stops them.
+ * Words are grouped in chunks of 4096 cells that are only allocated when a bit is set in them,
+ * so big boards only pay memory for the areas that have content.
+ */
+public class BitLayer {
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_WORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_WORDS - 1;
+    
+    private final int size;
+    private final int wordCount;
+    private final long[][] chunks;
+
+    /**
+     * Creates an empty layer.
+     * @param size the number of cells the layer covers
+     */
+    public BitLayer(int size) {
+        this.size = size;
+        this.wordCount = (int) ((size + 63L) >>> 6);
+        this.chunks = new long[(wordCount + CHUNK_MASK) >>> CHUNK_SHIFT][];
+    }
+
+    /**
+     * Creates a copy of another layer.
+     * @param other the layer to copy
+     */
+    public BitLayer(BitLayer other) {
+        this(other.size);
+        copyFrom(other);
+    }
+
+    /**
+     * Replaces the content of this layer with the content of another layer of the same size.
+     * Chunks are copied in bulk and chunks that are empty in the other layer are cleared.
+     * @param other the layer to copy
+     */
+    public void copyFrom(BitLayer other) {
+        if (other.size != size) {
+            throw new IllegalArgumentException("Layer sizes differ: " + other.size + " and " + size);
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            long[] source = other.chunks[i];
+            if (source == null) {
+                if (chunks[i] != null) {
+                    Arrays.fill(chunks[i], 0L);
+                }
+            } else {
+                if (chunks[i] == null) {
+                    chunks[i] = new long[source.length];
+                }
+                System.arraycopy(source, 0, chunks[i], 0, source.length);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cells covered by this layer.
+     * @return the layer size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the bit of a cell is set.
+     * @param index the cell index
+     * @return true if the bit is set, false otherwise
+     */
+    public boolean get(int index) {
+        return (word(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets the bit of a cell, allocating its chunk if needed.
+     * @param index the cell index
+     */
+    public void set(int index) {
+        int wordIndex = index >>> 6;
+        long[] chunk = chunks[wordIndex >>> CHUNK_SHIFT];
+        if (chunk == null) {
+            int chunkStart = wordIndex & ~CHUNK_MASK;
+            chunk = new long[Math.min(CHUNK_WORDS, wordCount - chunkStart)];
+            chunks[wordIndex >>> CHUNK_SHIFT] = chunk;
+        }
+        chunk[wordIndex & CHUNK_MASK] |= 1L << index;
+    }
+
+    /**
+     * Clears the bit of a cell.
+     * @param index the cell index
+     */
+    public void clear(int index) {
+        int wordIndex = index >>> 6;
+        long[] chunk = chunks[wordIndex >>> CHUNK_SHIFT];
+        if (chunk != null) {
+            chunk[wordIndex & CHUNK_MASK] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Clears every bit of the layer. Allocated chunks are kept to be reused.
+     */
+    public void clearAll() {
+        for (long[] chunk : chunks) {
+            if (chunk != null) {
+                Arrays.fill(chunk, 0L);
+            }
+        }
+    }
+
+    /**
+     * Gets how many chunks of this layer have been allocated.
+     * @return the number of allocated chunks
+     */
+    public int getAllocatedChunks() {
+        int count = 0;
+        for (long[] chunk : chunks) {
+            if (chunk != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads a word of the layer, unallocated chunks read as zero.
+     * @param wordIndex the index of the word
+     * @return the bits of the word
+     */
+    private long word(int wordIndex) {
+        long[] chunk = chunks[wordIndex >>> CHUNK_SHIFT];
+        return chunk == null ? 0L : chunk[wordIndex & CHUNK_MASK];
+    }
+
+    /**
+     * Finds the first set bit going up from a cell.
+     * @param from the first index to check
+     * @param to the exclusive upper limit of the scan
+     * @return the index of the first set bit in [from, to), or to if there is none
+     */
+    public int nextSetBit(int from, int to) {
+        return scanUp(from, to, 0L);
+    }
+
+    /**
+     * Finds the first clear bit going up from a cell.
+     * @param from the first index to check
+     * @param to the exclusive upper limit of the scan
+     * @return the index of the first clear bit in [from, to), or to if there is none
+     */
+    public int nextClearBit(int from, int to) {
+        return scanUp(from, to, -1L);
+    }
+
+    /**
+     * Finds the first set bit going down from a cell.
+     * @param from the first index to check
+     * @param to the exclusive lower limit of the scan, it can be -1
+     * @return the index of the first set bit in (to, from], or to if there is none
+     */
+    public int previousSetBit(int from, int to) {
+        return scanDown(from, to, 0L);
+    }
+
+    /**
+     * Finds the first clear bit going down from a cell.
+     * @param from the first index to check
+     * @param to the exclusive lower limit of the scan, it can be -1
+     * @return the index of the first clear bit in (to, from], or to if there is none
+     */
+    public int previousClearBit(int from, int to) {
+        return scanDown(from, to, -1L);
+    }
+
+    /**
+     * Scans upwards for the first bit that differs from the given pattern.
+     * @param from the first index to check
+     * @param to the exclusive upper limit
+     * @param flip 0 to look for set bits, -1 to look for clear bits
+     * @return the index found, or to if there is none
+     */
+    private int scanUp(int from, int to, long flip) {
+        if (from >= to) {
+            return to;
+        }
+        int wordIndex = from >>> 6;
+        long word = (word(wordIndex) ^ flip) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return Math.min(index, to);
+            }
+            wordIndex++;
+            if (flip == 0 && chunks[(wordIndex - 1) >>> CHUNK_SHIFT] == null) {
+                // Empty chunk, jump to the next one
+                wordIndex = ((wordIndex - 1) | CHUNK_MASK) + 1;
+            }
+            if ((long) wordIndex << 6 >= to) {
+                return to;
+            }
+            word = word(wordIndex) ^ flip;
+        }
+    }
+
+    /**
+     * Scans downwards for the first bit that differs from the given pattern.
+     * @param from the first index to check
+     * @param to the exclusive lower limit
+     * @param flip 0 to look for set bits, -1 to look for clear bits
+     * @return the index found, or to if there is none
+     */
+    private int scanDown(int from, int to, long flip) {
+        if (from <= to) {
+            return to;
+        }
+        int wordIndex = from >>> 6;
+        long word = (word(wordIndex) ^ flip) & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+                return Math.max(index, to);
+            }
+            if (flip == 0 && chunks[wordIndex >>> CHUNK_SHIFT] == null) {
+                // Empty chunk, jump to the last word of the previous one
+                wordIndex &= ~CHUNK_MASK;
+            }
+            if (wordIndex == 0 || (wordIndex << 6) - 1 <= to) {
+                return to;
+            }
+            wordIndex--;
+            word = word(wordIndex) ^ flip;
+        }
+    }
+}
\ No newline at end of file
@@ -1,171 +1,306 @@
 package Domain;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Represents the game board.
- * It is a 16x16 grid and contains the level layout, manages obstacles.
+ * It is a grid of any size (16x16 for the normal levels) that contains the level layout and manages obstacles.
+ * Besides the obstacle lists, every cell keeps a reference to the ice block
+ * and campfire placed on it, so position queries don't scan the lists.
+ * The state of every cell is also packed in bit layers (walls, ice, hot tiles and lit campfires)
+ * so that movement checks are a single bit test. The walls and the ice are also kept by columns,
+ * so ice lines find the nearest wall and the first ice in any direction with bit scans.
+ * Layers and cell references are stored in chunks that are only allocated when they get content,
+ * so memory depends on what is on the board and not on its area.
  */
 public class Board {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+    static final int[] DX = {0, 0, -1, 1};
+    static final int[] DY = {-1, 1, 0, 0};
+    private static final String[] DIRECTION_NAMES = {"UP", "DOWN", "LEFT", "RIGHT"};
+    
     private int width;
     private int height;
-    private int[][] grid;
-    private ArrayList<IceBlock> iceBlocks;
-    private ArrayList<Campfire> campfires;
-    private ArrayList<HotTile> hotTiles;
+    private BitLayer walls;
+    private BitLayer ice;
+    private BitLayer hotTileCells;
+    private BitLayer litCampfires;
+    private BitLayer blocked; // walls and ice
+    private BitLayer iceColumns; // ice, by columns
+    private BitLayer wallColumns; // walls, by columns
+    private ChangeJournal journal;
+    private EventStream events; // null until a game attaches its stream
+    private TimerWheel timers; // null until a game attaches its wheel, campfires count down every update then
+    private long hash; // Zobrist hash of the wall, ice, hot tile and lit campfire layers
+    private long startHash;
+    private IceBlock[] iceSlots; // listed blocks in [0, iceCount), recycled blocks after them
+    private int iceCount;
+    private IceBlock[] destroyedBlocks; // listed blocks destroyed since the last cleanup
+    private int destroyedCount;
+    private List<IceBlock> iceBlockView;
+    private EntityList<Campfire> campfires;
+    private EntityList<HotTile> hotTiles;
+    private final EntityStore campfireStore; // campfire i of the list is slot i, once synced
+    private final EntityStore hotTileStore;
+    private final EntityStore iceStore; // one slot per ice block of the pool, for good
+    private int campfireVersion; // versions of the lists the stores were built from
+    private int hotTileVersion;
+    private ChunkedGrid<IceBlock> iceBlockCells;
+    private ChunkedGrid<Campfire> campfireCells;
     private int currentLevel;
+    private boolean sharedLayers; // walls and hot tile layers still belong to the level template
+    private boolean templateSized; // the start layers are the template layers
+    private BitLayer startWalls;
+    private BitLayer startHotTileCells;
+    private BitLayer startIce;
+    private BitLayer startIceColumns;
+    private BitLayer startBlocked;
+    private BitLayer startWallColumns;
+    private int[] startIceCells;
+    private Campfire[] startCampfires;
+    private HotTile[] startHotTiles;
+    
+    /**
+     * Creates a new empty board with the given dimensions and no level loaded.
+     * Walls and obstacles can be added afterwards to build custom maps.
+     * @param width the width of the board
+     * @param height the height of the board
+     */
+    public Board(int width, int height) {
+        if (width <= 0 || height <= 0 || width > Position.MAX_COORDINATE || height > Position.MAX_COORDINATE
+            || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid board size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        int cells = width * height;
+        this.walls = new BitLayer(cells);
+        this.ice = new BitLayer(cells);
+        this.hotTileCells = new BitLayer(cells);
+        this.litCampfires = new BitLayer(cells);
+        this.blocked = new BitLayer(cells);
+        this.iceColumns = new BitLayer(cells);
+        this.wallColumns = new BitLayer(cells);
+        this.iceSlots = new IceBlock[16];
+        this.iceCount = 0;
+        this.destroyedBlocks = new IceBlock[16];
+        this.destroyedCount = 0;
+        this.iceBlockView = new IceBlockView();
+        this.campfires = new EntityList<>();
+        this.hotTiles = new EntityList<>();
+        this.campfireStore = new EntityStore(4);
+        this.hotTileStore = new EntityStore(4);
+        this.iceStore = new EntityStore(16);
+        this.campfireVersion = -1;
+        this.hotTileVersion = -1;
+        this.iceBlockCells = new ChunkedGrid<>(cells);
+        this.campfireCells = new ChunkedGrid<>(cells);
+        this.journal = new ChangeJournal(cells);
+        this.currentLevel = 0;
+    }
     
     /**
-     * Creates a new board with default dimensions and loads the specified level.
+     * Creates a new board with the given dimensions and loads the specified level.
+     * The level layout is placed on the top left corner, if the board is bigger
+     * the remaining cells are empty and if it is smaller the layout is cut.
      * @param width the defined width
      * @param height the defined height
      * @param level the level number to load: 1, 2 or 3
      */
     public Board(int width, int height, int level) {
-        this.width = 16;
-        this.height = 16;
-        this.grid = new int[this.height][this.width];
-        this.iceBlocks = new ArrayList<>();
-        this.campfires = new ArrayList<>();
-        this.hotTiles = new ArrayList<>();
-        this.currentLevel = level;
+        this(width, height, LevelTemplate.forLevel(level));
+    }
+    
+    /**
+     * Creates a new board with the size of a level template and loads it.
+     * @param template the level to load
+     */
+    public Board(LevelTemplate template) {
+        this(template.getWidth(), template.getHeight(), template);
+    }
+    
+    /**
+     * Creates a new board with the given dimensions and loads a level template
+     * on its top left corner.
+     * When the board has the size of the template, the wall and hot tile layers
+     * are shared with it until the board adds its own walls or hot tiles,
+     * and the ice layers are copied in bulk.
+     * @param width the width of the board
+     * @param height the height of the board
+     * @param template the level to load
+     */
+    public Board(int width, int height, LevelTemplate template) {
+        this(width, height);
+        this.currentLevel = template.getLevel();
         
-        switch(level) {
-            case 1:
-                createLevel1();
-                break;
-            case 2:
-                createLevel2();
-                break;
-            case 3:
-                createLevel3();
-                break;
-            default:
-                createLevel1();
-        }
-    }
-    
-    /**
-     * Creates the layout for level 1.
-     * The level matrix uses numbers to represent different elements:
-     * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn,
-     * 4 = enemy, 5 = banana, 6 = grape
-     */
-    private void createLevel1() {
-        int[][] level1Matrix = {
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-            {1,6,0,0,0,0,0,0,0,0,0,0,4,0,6,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,0,5,0,0,0,0,0,0,0,0,0,0,5,0,1},
-            {1,0,0,2,2,0,0,0,0,0,0,2,2,0,0,1},
-            {1,0,0,2,6,0,0,0,0,0,4,6,2,0,0,1},
-            {1,5,0,2,0,0,1,1,1,1,0,0,2,0,5,1},
-            {1,0,0,2,0,0,1,1,1,1,0,0,2,0,0,1},
-            {1,0,0,2,0,0,1,1,1,1,0,0,2,0,0,1},
-            {1,5,0,2,0,0,1,1,1,1,0,0,2,0,5,1},
-            {1,0,0,2,6,0,0,0,0,0,0,6,2,0,0,1},
-            {1,0,0,2,2,0,0,0,0,0,0,2,2,0,0,1},
-            {1,0,5,0,0,0,0,0,0,0,0,0,0,5,0,1},
-            {1,0,0,0,0,0,0,3,0,0,0,0,0,0,0,1},
-            {1,6,0,0,0,0,0,0,0,0,0,0,0,0,6,1},
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-        };
+        templateSized = width == template.getWidth() && height == template.getHeight();
+        if (templateSized) {
+            walls = template.getWalls();
+            hotTileCells = template.getHotTiles();
+            wallColumns = template.getWallColumns();
+            sharedLayers = true;
+            ice.copyFrom(template.getIce());
+            iceColumns.copyFrom(template.getIceColumns());
+            blocked.copyFrom(template.getBlocked());
+            
+            for (int i = 0; i < template.getIceCount(); i++) {
+                int cell = template.getIceCell(i);
+                iceBlockCells.set(cell, acquireIceBlock(cell % width, cell / width));
+            }
+            for (int i = 0; i < template.getHotTileCount(); i++) {
+                int cell = template.getHotTileCell(i);
+                hotTiles.add(new HotTile(cell % width, cell / width));
+            }
+        } else {
+            loadLevel(template);
+        }
         
-        loadMatrixToGrid(level1Matrix);
-    }
-    
-    /**
-     * Creates the layout for level 2.
-     * The level matrix uses numbers to represent different elements:
-     * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn,
-     * 4 = enemy, 5 = banana, 7 = pineapple, 9 = hot tile
-     */
-    private void createLevel2() {
-        int[][] level2Matrix = {
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-            {1,0,0,7,0,0,0,0,0,0,0,0,7,0,0,1},
-            {1,0,2,0,2,0,2,0,0,2,0,2,0,2,0,1},
-            {1,7,0,0,0,0,0,0,0,0,0,0,0,0,7,1},
-            {1,0,2,0,9,0,5,2,2,5,0,9,0,2,0,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,0,2,0,2,0,1,1,1,1,0,2,0,2,0,1},
-            {1,0,2,0,5,0,1,1,1,1,0,5,0,2,0,1},
-            {1,0,2,0,5,0,1,1,1,1,0,5,0,2,0,1},
-            {1,0,2,0,2,0,1,1,1,1,0,2,0,2,0,1},
-            {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-            {1,0,2,0,9,0,5,2,2,5,0,9,0,2,0,1},
-            {1,7,0,3,0,0,0,0,0,0,0,0,4,0,7,1},
-            {1,0,2,0,2,0,2,0,0,2,0,2,0,2,0,1},
-            {1,0,0,7,0,0,0,0,0,0,0,0,7,0,0,1},
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-        };
+        for (int i = 0; i < template.getCampfireCount(); i++) {
+            int cell = template.getCampfireCell(i);
+            int x = cell % template.getWidth();
+            int y = cell / template.getWidth();
+            if (isValidPosition(x, y)) {
+                addCampfire(x, y);
+            }
+        }
+        saveStartState(template);
+        // Loading the level is not a change, readers start from the loaded board
+        journal = new ChangeJournal(width * height);
+        hash = computeStateHash();
+        startHash = hash;
+    }
+    
+    /**
+     * Keeps the starting layers and obstacles of the level so reset can restore them.
+     * Boards with the size of the template use the template layers directly.
+     * @param template the level that was loaded
+     */
+    private void saveStartState(LevelTemplate template) {
+        if (templateSized) {
+            startWalls = template.getWalls();
+            startHotTileCells = template.getHotTiles();
+            startIce = template.getIce();
+            startIceColumns = template.getIceColumns();
+            startBlocked = template.getBlocked();
+            startWallColumns = template.getWallColumns();
+        } else {
+            startWalls = new BitLayer(walls);
+            startWallColumns = new BitLayer(wallColumns);
+            startHotTileCells = new BitLayer(hotTileCells);
+            startIce = new BitLayer(ice);
+            startIceColumns = new BitLayer(iceColumns);
+            startBlocked = new BitLayer(blocked);
+        }
+        startIceCells = new int[iceCount];
+        for (int i = 0; i < iceCount; i++) {
+            startIceCells[i] = cellOf(iceSlots[i].getPackedPosition());
+        }
+        startCampfires = campfires.toArray(new Campfire[0]);
+        startHotTiles = hotTiles.toArray(new HotTile[0]);
+    }
+    
+    /**
+     * Restores the board to the state it had when its level was loaded.
+     * The layers are copied back in bulk, the ice blocks come from the pool and the
+     * starting campfires and hot tiles are reused, so restarting a level doesn't create new objects.
+     * The change journal is cleared and starts a new epoch.
+     * @throws IllegalStateException if the board was not created from a level
+     */
+    public void reset() {
+        if (startIceCells == null) {
+            throw new IllegalStateException("The board was not created from a level");
+        }
+        releaseAllIceBlocks();
         
-        loadMatrixToGrid(level2Matrix);
-    }
-    
-    /**
-     * Creates the layout for level 3.
-     * The level matrix uses numbers to represent different elements:
-     * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn,
-     * 4 = enemy, 7 = pineapple, 8 = cherry, 10 = campfire
-     */
-    private void createLevel3() {
-        int[][] level3Matrix = {
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-            {1,8,0,0,7,0,0,0,0,0,0,7,0,0,8,1},
-            {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-            {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-            {1,7,0,0,10,0,0,0,0,0,0,10,0,0,7,1},
-            {1,0,2,2,0,8,0,4,0,0,8,0,2,2,0,1},
-            {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-            {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-            {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-            {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-            {1,0,2,2,0,8,0,0,3,0,8,0,2,2,0,1},
-            {1,7,0,0,10,0,0,0,0,0,0,10,0,0,7,1},
-            {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-            {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-            {1,8,0,0,7,0,0,0,0,0,0,7,0,0,8,1},
-            {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-        };
+        if (templateSized) {
+            walls = startWalls;
+            wallColumns = startWallColumns;
+            hotTileCells = startHotTileCells;
+            sharedLayers = true;
+        } else {
+            walls.copyFrom(startWalls);
+            wallColumns.copyFrom(startWallColumns);
+            hotTileCells.copyFrom(startHotTileCells);
+        }
+        ice.copyFrom(startIce);
+        iceColumns.copyFrom(startIceColumns);
+        blocked.copyFrom(startBlocked);
         
-        loadMatrixToGrid(level3Matrix);
-    }
-    
-    /**
-     * Loads a level matrix into the game board grid and creates obstacles.
-     * Matrix value meanings:
-     * 1 = wall
-     * 2 = ice block 
-     * 9 = hot tile
-     * 10 = campfire
-     * Other values = empty space
-     * @param matrix the array representing the level layout
-     */
-    private void loadMatrixToGrid(int[][] matrix) {
-        for (int i = 0; i < height; i++) {
-            for (int j = 0; j < width; j++) {
-                int value = matrix[i][j];
-                
-                if (value == 1) {
-                    grid[i][j] = 1;
-                } else if (value == 2) {
-                    grid[i][j] = 0; 
-                    IceBlock block = new IceBlock(j, i);
-                    iceBlocks.add(block);
-                } else if (value == 9) {
-                    grid[i][j] = 0;
-                    HotTile tile = new HotTile(j, i);
-                    hotTiles.add(tile);
-                } else if (value == 10) {
-                    grid[i][j] = 0;
-                    Campfire fire = new Campfire(j, i);
-                    campfires.add(fire);
-                } else {
-                    grid[i][j] = 0;
-                }
+        for (int cell : startIceCells) {
+            iceBlockCells.set(cell, acquireIceBlock(cell % width, cell / width));
+        }
+        
+        for (int i = 0; i < campfires.size(); i++) {
+            int position = campfires.get(i).getPackedPosition();
+            if (isValidPosition(position)) {
+                campfireCells.set(cellOf(position), null);
+            }
+        }
+        campfires.clear();
+        litCampfires.clearAll();
+        // The lit bits are restored directly, a reset is not a campfire relighting for the subscribers
+        for (Campfire fire : startCampfires) {
+            fire.relight();
+            campfires.add(fire);
+            int position = fire.getPackedPosition();
+            if (isValidPosition(position)) {
+                campfireCells.set(cellOf(position), fire);
+                litCampfires.set(cellOf(position));
             }
         }
+        
+        hotTiles.clear();
+        for (HotTile tile : startHotTiles) {
+            tile.create();
+            hotTiles.add(tile);
+        }
+        journal.clear();
+        hash = startHash;
+    }
+    
+    /**
+     * Loads a level template cell by cell on a board with a different size,
+     * cutting the cells that fall outside the board.
+     * @param template the level to load
+     */
+    private void loadLevel(LevelTemplate template) {
+        int templateWidth = template.getWidth();
+        BitLayer templateWalls = template.getWalls();
+        int cells = templateWalls.size();
+        for (int cell = templateWalls.nextSetBit(0, cells); cell < cells; cell = templateWalls.nextSetBit(cell + 1, cells)) {
+            addWall(cell % templateWidth, cell / templateWidth);
+        }
+        for (int i = 0; i < template.getIceCount(); i++) {
+            int cell = template.getIceCell(i);
+            addIceBlock(cell % templateWidth, cell / templateWidth);
+        }
+        for (int i = 0; i < template.getHotTileCount(); i++) {
+            int cell = template.getHotTileCell(i);
+            int x = cell % templateWidth;
+            int y = cell / templateWidth;
+            if (isValidPosition(x, y)) {
+                addHotTile(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Makes private copies of the wall and hot tile layers if they are still shared
+     * with the level template, so the template is never modified.
+     */
+    private void ownSharedLayers() {
+        if (sharedLayers) {
+            walls = new BitLayer(walls);
+            wallColumns = new BitLayer(wallColumns);
+            hotTileCells = new BitLayer(hotTileCells);
+            sharedLayers = false;
+        }
     }
     
     /**
@@ -186,7 +321,7 @@ public class Board {
     
     /**
      * Gets the current level number.
-     * @return the level number: 1, 2 or 3
+     * @return the level number: 1, 2 or 3, or 0 for an empty board
      */
     public int getCurrentLevel() {
         return currentLevel;
@@ -199,10 +334,7 @@ public class Board {
      * @return 1 if wall or an invalid position, 0 if empty
      */
     public int getCellType(int x, int y) {
-        if (!isValidPosition(x, y)) {
-            return 1;
-        }
-        return grid[y][x];
+        return hasWall(x, y) ? 1 : 0;
     }
     
     /**
@@ -215,14 +347,25 @@ public class Board {
         return x >= 0 && x < width && y >= 0 && y < height;
     }
     
+    /**
+     * Checks if a player, enemy or fruit can step on the specified position:
+     * it must be inside the board with no wall and no ice block.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return true if the cell is free to move into, false otherwise
+     */
+    public boolean canMoveTo(int x, int y) {
+        return isValidPosition(x, y) && !blocked.get(y * width + x);
+    }
+    
     /**
      * Checks if there's a wall at the specified position.
      * @param x the horizontal position
      * @param y the vertical position
-     * @return true if there's a wall, false otherwise
+     * @return true if there's a wall or the position is invalid, false otherwise
      */
     public boolean hasWall(int x, int y) {
-        return getCellType(x, y) == 1;
+        return !isValidPosition(x, y) || walls.get(y * width + x);
     }
     
     /**
@@ -232,13 +375,7 @@ public class Board {
      * @return true if there's an ice block, false otherwise
      */
     public boolean hasIceBlock(int x, int y) {
-        for (IceBlock block : iceBlocks) {
-            if (block.exists() && block.getPosition().getX() == x 
-                && block.getPosition().getY() == y) {
-                return true;
-            }
-        }
-        return false;
+        return isValidPosition(x, y) && ice.get(y * width + x);
     }
     
     /**
@@ -248,14 +385,7 @@ public class Board {
      * @return true if there's a campfire on, false otherwise
      */
     public boolean hasCampfireOn(int x, int y) {
-        for (Campfire fire : campfires) {
-            if (fire.exists() && fire.isOn() &&
-                fire.getPosition().getX() == x && 
-                fire.getPosition().getY() == y) {
-                return true;
-            }
-        }
-        return false;
+        return isValidPosition(x, y) && litCampfires.get(y * width + x);
     }
     
     /**
@@ -265,14 +395,399 @@ public class Board {
      * @return true if there's a hot tile, false otherwise
      */
     public boolean hasHotTile(int x, int y) {
-        for (HotTile tile : hotTiles) {
-            if (tile.exists() &&
-                tile.getPosition().getX() == x && 
-                tile.getPosition().getY() == y) {
-                return true;
+        return isValidPosition(x, y) && hotTileCells.get(y * width + x);
+    }
+    
+    /**
+     * Checks if a packed position is within the board boundaries.
+     * Positions packed from negative coordinates unpack past the edge, so they are never valid.
+     * @param position the packed position to check, see Position.pack
+     * @return true if the position is valid, false otherwise
+     */
+    public boolean isValidPosition(int position) {
+        return Position.unpackX(position) < width && Position.unpackY(position) < height;
+    }
+    
+    /**
+     * Checks if a player, enemy or fruit can step on a packed position.
+     * @param position the packed position, see Position.pack
+     * @return true if the cell is free to move into, false otherwise
+     */
+    public boolean canMoveTo(int position) {
+        return isValidPosition(position) && !blocked.get(cellOf(position));
+    }
+    
+    /**
+     * Checks if there's an ice block at a packed position.
+     * @param position the packed position, see Position.pack
+     * @return true if there's an ice block, false otherwise
+     */
+    public boolean hasIceBlock(int position) {
+        return isValidPosition(position) && ice.get(cellOf(position));
+    }
+    
+    /**
+     * Checks if there's a campfire on, at a packed position.
+     * @param position the packed position, see Position.pack
+     * @return true if there's a campfire on, false otherwise
+     */
+    public boolean hasCampfireOn(int position) {
+        return isValidPosition(position) && litCampfires.get(cellOf(position));
+    }
+    
+    /**
+     * Gets the cell index of a packed position, row by row.
+     * @param position the packed position, it must be a valid position
+     * @return the cell index, y * width + x
+     */
+    public int cellOf(int position) {
+        return Position.unpackY(position) * width + Position.unpackX(position);
+    }
+    
+    /**
+     * Gets the ice block registered at the specified position.
+     * The block may have been destroyed already, use hasIceBlock to check if it is still there.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return the ice block at that cell, or null if there is none or the position is invalid
+     */
+    public IceBlock getIceBlockAt(int x, int y) {
+        if (!isValidPosition(x, y)) {
+            return null;
+        }
+        return iceBlockCells.get(y * width + x);
+    }
+    
+    /**
+     * Gets the campfire placed at the specified position.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return the campfire at that cell, or null if there is none or the position is invalid
+     */
+    public Campfire getCampfireAt(int x, int y) {
+        if (!isValidPosition(x, y)) {
+            return null;
+        }
+        return campfireCells.get(y * width + x);
+    }
+    
+    /**
+     * Destroys the ice block at the specified position, if there is one.
+     * Ice blocks must be destroyed through the board so the cell layers stay up to date.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return true if a block was destroyed, false if the cell had no ice
+     */
+    public boolean destroyIceBlockAt(int x, int y) {
+        if (!hasIceBlock(x, y)) {
+            return false;
+        }
+        iceBlockCells.get(y * width + x).destroy();
+        setIce(x, y, false);
+        return true;
+    }
+    
+    /**
+     * Registers an ice block on its cell and marks the cell as ice.
+     * @param block the ice block to place
+     * @param x the horizontal position of the block
+     * @param y the vertical position of the block
+     */
+    private void placeIceBlock(IceBlock block, int x, int y) {
+        iceBlockCells.set(y * width + x, block);
+        setIce(x, y, true);
+    }
+    
+    /**
+     * Updates the ice bit of a cell in every layer that includes ice.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @param present true if the cell now has ice, false if it was removed
+     */
+    private void setIce(int x, int y, boolean present) {
+        int row = y * width + x;
+        int column = x * height + y;
+        if (ice.get(row) == present) {
+            return;
+        }
+        recordChange(row, ChangeJournal.ICE, present ? 0 : 1, present ? 1 : 0);
+        if (present) {
+            ice.set(row);
+            iceColumns.set(column);
+            blocked.set(row);
+        } else {
+            ice.clear(row);
+            iceColumns.clear(column);
+            blocked.clear(row);
+        }
+    }
+    
+    /**
+     * Updates the lit campfire bit of a campfire's cell to match its current state.
+     * @param fire the campfire to refresh
+     */
+    private void refreshCampfire(Campfire fire) {
+        int position = fire.getPackedPosition();
+        if (!isValidPosition(position)) {
+            return;
+        }
+        int cell = cellOf(position);
+        boolean lit = fire.exists() && fire.isOn();
+        if (litCampfires.get(cell) == lit) {
+            return;
+        }
+        recordChange(cell, ChangeJournal.CAMPFIRE, lit ? 0 : 1, lit ? 1 : 0);
+        emit(lit ? EventStream.CAMPFIRE_RELIT : EventStream.CAMPFIRE_EXTINGUISHED, cell, 0);
+        if (lit) {
+            litCampfires.set(cell);
+        } else {
+            litCampfires.clear(cell);
+        }
+    }
+    
+    /**
+     * Sets the stream that receives the events of this board, ice lines and campfires.
+     * @param events the event stream of the game, or null for none
+     */
+    void setEvents(EventStream events) {
+        this.events = events;
+    }
+    
+    /**
+     * Sets the timer wheel that counts down the extinguished campfires.
+     * Without one, updateObstacles counts down every campfire on every update.
+     * @param timers the timer wheel of the game, or null for none
+     */
+    void setTimers(TimerWheel timers) {
+        this.timers = timers;
+    }
+    
+    /**
+     * Extinguishes a campfire and starts its reignite countdown.
+     * @param fire the campfire to extinguish
+     */
+    private void extinguishCampfire(Campfire fire) {
+        fire.extinguish();
+        refreshCampfire(fire);
+        if (timers != null) {
+            timers.cancel(fire.timer);
+            int cell = cellOf(fire.getPackedPosition());
+            fire.timer = timers.schedule(fire.getTurnOnTime(), cell << 1 | Game.TIMER_CAMPFIRE);
+        }
+    }
+    
+    /**
+     * Reignites the campfire of a cell when its timer is due.
+     * @param cell the cell index of the campfire
+     */
+    void reigniteCampfire(int cell) {
+        Campfire fire = campfireCells.get(cell);
+        if (fire != null && fire.exists() && !fire.isOn()) {
+            fire.timer = -1;
+            fire.reignite();
+            refreshCampfire(fire);
+        }
+    }
+    
+    /**
+     * Writes an event to the stream of the game, if the board has one.
+     * @param type the event type
+     * @param cell the cell of the event
+     * @param value the value of the event
+     */
+    private void emit(int type, int cell, int value) {
+        if (events != null) {
+            events.emit(type, cell, value);
+        }
+    }
+    
+    /**
+     * Records a change of a cell in the journal and in the state hash.
+     * @param cell the cell index
+     * @param layer the ChangeJournal layer that changed
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    private void recordChange(int cell, int layer, int oldValue, int newValue) {
+        journal.record(cell, layer, oldValue, newValue);
+        hash ^= Zobrist.key(Zobrist.CELL, layer, cell);
+    }
+    
+    /**
+     * Gets the Zobrist hash of the board cells: walls, ice, hot tiles and lit campfires.
+     * It is updated with every change, so reading it costs nothing.
+     * @return the 64-bit hash
+     */
+    public long stateHash() {
+        return hash;
+    }
+    
+    /**
+     * Computes the Zobrist hash of the board cells from scratch, going over every layer.
+     * Used to check the hash kept by stateHash.
+     * @return the 64-bit hash
+     */
+    public long computeStateHash() {
+        return layerHash(walls, ChangeJournal.WALL) ^ layerHash(ice, ChangeJournal.ICE)
+            ^ layerHash(hotTileCells, ChangeJournal.HOT_TILE) ^ layerHash(litCampfires, ChangeJournal.CAMPFIRE);
+    }
+    
+    /**
+     * Computes the Zobrist hash of the cells set in a layer.
+     * @param layer the layer, by rows
+     * @param journalLayer the ChangeJournal layer it stores
+     * @return the XOR of the keys of its set cells
+     */
+    private long layerHash(BitLayer layer, int journalLayer) {
+        long result = 0;
+        int cells = layer.size();
+        for (int cell = layer.nextSetBit(0, cells); cell < cells; cell = layer.nextSetBit(cell + 1, cells)) {
+            result ^= Zobrist.key(Zobrist.CELL, journalLayer, cell);
+        }
+        return result;
+    }
+    
+    /**
+     * Writes the frame snapshot flags of every cell: walls, ice, hot tiles and campfires.
+     * @param flags the array that receives one FrameSnapshot flag set per cell, row by row
+     */
+    void writeCellFlags(byte[] flags) {
+        int cells = width * height;
+        Arrays.fill(flags, 0, cells, (byte) 0);
+        markCells(flags, walls, FrameSnapshot.WALL);
+        markCells(flags, ice, FrameSnapshot.ICE);
+        markCells(flags, hotTileCells, FrameSnapshot.HOT_TILE);
+        for (int i = 0; i < campfires.size(); i++) {
+            Campfire fire = campfires.get(i);
+            if (fire.exists() && isValidPosition(fire.getPackedPosition())) {
+                int cell = cellOf(fire.getPackedPosition());
+                flags[cell] |= fire.isOn() ? FrameSnapshot.CAMPFIRE | FrameSnapshot.CAMPFIRE_LIT : FrameSnapshot.CAMPFIRE;
             }
         }
-        return false;
+    }
+    
+    /**
+     * Adds a flag to the cells set in a layer.
+     * @param flags the cell flags
+     * @param layer the layer to read
+     * @param flag the flag to add
+     */
+    private static void markCells(byte[] flags, BitLayer layer, int flag) {
+        int cells = layer.size();
+        for (int cell = layer.nextSetBit(0, cells); cell < cells; cell = layer.nextSetBit(cell + 1, cells)) {
+            flags[cell] |= flag;
+        }
+    }
+    
+    /**
+     * Gets the index of a direction name.
+     * @param direction the direction: "UP", "DOWN", "LEFT" or "RIGHT"
+     * @return UP, DOWN, LEFT or RIGHT, or -1 if the name is not a direction
+     */
+    public static int directionIndex(String direction) {
+        switch(direction) {
+            case "UP":
+                return UP;
+            case "DOWN":
+                return DOWN;
+            case "LEFT":
+                return LEFT;
+            case "RIGHT":
+                return RIGHT;
+            default:
+                return -1;
+        }
+    }
+    
+    /**
+     * Gets the name of a direction index.
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @return "UP", "DOWN", "LEFT" or "RIGHT"
+     */
+    public static String directionName(int direction) {
+        return DIRECTION_NAMES[direction];
+    }
+    
+    /**
+     * Gets the horizontal step of a direction.
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @return -1, 0 or 1
+     */
+    public static int dx(int direction) {
+        return DX[direction];
+    }
+    
+    /**
+     * Gets the vertical step of a direction.
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @return -1, 0 or 1
+     */
+    public static int dy(int direction) {
+        return DY[direction];
+    }
+    
+    /**
+     * Gets the packed position next to another one in a direction.
+     * A step out of the board gives a position that is not valid on any board.
+     * @param position the packed position, see Position.pack
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @return the packed position one cell away
+     */
+    public static int neighbor(int position, int direction) {
+        return Position.pack(Position.unpackX(position) + DX[direction], Position.unpackY(position) + DY[direction]);
+    }
+    
+    /**
+     * Gets how many cells a line can cover from a position before reaching a wall
+     * or the edge of the board. The first wall of the row or column is found by
+     * scanning the wall layers, so it costs no memory beyond the walls themselves.
+     * @param x the horizontal starting position, it must be a valid position
+     * @param y the vertical starting position, it must be a valid position
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @return the number of cells, counting the starting one, with no wall
+     */
+    private int wallDistance(int x, int y, int direction) {
+        if (direction == LEFT || direction == RIGHT) {
+            int from = y * width + x;
+            if (direction == RIGHT) {
+                return walls.nextSetBit(from, y * width + width) - from;
+            }
+            return from - walls.previousSetBit(from, y * width - 1);
+        }
+        int from = x * height + y;
+        if (direction == DOWN) {
+            return wallColumns.nextSetBit(from, x * height + height) - from;
+        }
+        return from - wallColumns.previousSetBit(from, x * height - 1);
+    }
+    
+    /**
+     * Counts how many consecutive cells from a position, in a direction, have ice
+     * or have no ice. The count includes the starting cell and never goes over a limit.
+     * @param present true to count cells with ice, false to count cells without ice
+     * @param x the horizontal starting position
+     * @param y the vertical starting position
+     * @param direction UP, DOWN, LEFT or RIGHT
+     * @param limit the maximum number of cells to count
+     * @return the length of the run
+     */
+    private int iceRun(boolean present, int x, int y, int direction, int limit) {
+        if (direction == LEFT || direction == RIGHT) {
+            int from = y * width + x;
+            if (direction == RIGHT) {
+                int stop = present ? ice.nextClearBit(from, from + limit) : ice.nextSetBit(from, from + limit);
+                return stop - from;
+            }
+            int stop = present ? ice.previousClearBit(from, from - limit) : ice.previousSetBit(from, from - limit);
+            return from - stop;
+        }
+        int from = x * height + y;
+        if (direction == DOWN) {
+            int stop = present ? iceColumns.nextClearBit(from, from + limit) : iceColumns.nextSetBit(from, from + limit);
+            return stop - from;
+        }
+        int stop = present ? iceColumns.previousClearBit(from, from - limit) : iceColumns.previousSetBit(from, from - limit);
+        return from - stop;
     }
     
     /**
@@ -283,61 +798,52 @@ public class Board {
      * @param direction the direction to create blocks: "UP", "DOWN", "LEFT", "RIGHT"
      */
     public void createIceBlocks(int startX, int startY, String direction) {
-        if (!isValidPosition(startX, startY)) {
+        createIceBlocks(startX, startY, directionIndex(direction));
+    }
+    
+    /**
+     * Creates a line of ice blocks in the specified direction.
+     * The line continues until it hits a wall or an existing ice block.
+     * @param startX the horizontal starting position
+     * @param startY the vertical starting position
+     * @param direction the direction to create blocks: UP, DOWN, LEFT or RIGHT
+     */
+    public void createIceBlocks(int startX, int startY, int direction) {
+        if (!isValidPosition(startX, startY) || direction < 0) {
             return;
         }
         
-        int dx = 0; 
-        int dy = 0;
-        
-        switch(direction) {
-            case "UP": 
-                dy = -1; 
-                break;
-            case "DOWN": 
-                dy = 1; 
-                break;
-            case "LEFT": 
-                dx = -1; 
-                break;
-            case "RIGHT": 
-                dx = 1; 
-                break;
-        }
-        
+        // Find the nearest wall first, then only the ice has to be scanned up to it
+        int bound = wallDistance(startX, startY, direction);
+        int length = iceRun(false, startX, startY, direction, bound);
+        int dx = DX[direction];
+        int dy = DY[direction];
         int x = startX;
         int y = startY;
         
-        // Create blocks until finding an obstacle
-        while (isValidPosition(x, y) && !hasWall(x, y)) {
-            // If there's already a block, stop creating
-            if (hasIceBlock(x, y)) {
-                break;
-            }
-            
+        for (int i = 0; i < length; i++) {
             // Create the block
-            IceBlock newBlock = new IceBlock(x, y);
-            iceBlocks.add(newBlock);
+            IceBlock newBlock = acquireIceBlock(x, y);
             
             // If there's a hot tile, melt immediately
             if (hasHotTile(x, y)) {
                 newBlock.destroy();
+            } else {
+                placeIceBlock(newBlock, x, y);
             }
             
             // If there's a lit campfire, extinguish it
-            for (Campfire fire : campfires) {
-                if (fire.exists() && fire.isOn() &&
-                    fire.getPosition().getX() == x && 
-                    fire.getPosition().getY() == y) {
-                    fire.extinguish();
-                    break;
-                }
+            if (hasCampfireOn(x, y)) {
+                extinguishCampfire(campfireCells.get(y * width + x));
             }
             
             // Advance to next position
             x += dx;
             y += dy;
         }
+        if (length > 0) {
+            emit(EventStream.ICE_CREATED, startY * width + startX, length);
+        }
     }
     
     /**
@@ -349,56 +855,44 @@ public class Board {
      * @param direction the direction to destroy blocks: "UP", "DOWN", "LEFT", "RIGHT"
      */
     public void destroyIceBlocks(int startX, int startY, String direction) {
-        if (!isValidPosition(startX, startY)) {
+        destroyIceBlocks(startX, startY, directionIndex(direction));
+    }
+    
+    /**
+     * Destroys ice blocks in a line in the specified direction.
+     * The destruction continues in a domino effect until no more ice blocks
+     * are found in that direction.
+     * @param startX the horizontal starting position
+     * @param startY the vertical starting position
+     * @param direction the direction to destroy blocks: UP, DOWN, LEFT or RIGHT
+     */
+    public void destroyIceBlocks(int startX, int startY, int direction) {
+        if (!isValidPosition(startX, startY) || direction < 0) {
             return;
         }
         
-        int dx = 0; 
-        int dy = 0;
-        
-        switch(direction) {
-            case "UP": 
-                dy = -1; 
-                break;
-            case "DOWN": 
-                dy = 1; 
-                break;
-            case "LEFT": 
-                dx = -1; 
-                break;
-            case "RIGHT": 
-                dx = 1; 
-                break;
-        }
-        
+        int dx = DX[direction];
+        int dy = DY[direction];
         int x = startX + dx;
         int y = startY + dy;
+        if (!isValidPosition(x, y)) {
+            return;
+        }
         
-        while (isValidPosition(x, y) && !hasWall(x, y)) {
-            boolean blockFound = false;
-            
-            for (IceBlock block : iceBlocks) {
-                if (block.exists() && block.getPosition().getX() == x 
-                    && block.getPosition().getY() == y) {
-                    block.destroy();
-                    
-                    // Reignite campfire if there was one underneath
-                    for (Campfire fire : campfires) {
-                        if (fire.exists() && !fire.isOn() &&
-                            fire.getPosition().getX() == x && 
-                            fire.getPosition().getY() == y) {
-                            fire.extinguish();
-                            break;
-                        }
-                    }
-                    
-                    blockFound = true;
-                    break;
-                }
-            }
+        // Walls never hold ice, so the domino effect stops at the first cell without ice
+        int bound = wallDistance(x, y, direction);
+        int length = iceRun(true, x, y, direction, bound);
+        if (length > 0) {
+            emit(EventStream.ICE_DESTROYED, y * width + x, length);
+        }
+        
+        for (int i = 0; i < length; i++) {
+            destroyIceBlockAt(x, y);
             
-            if (!blockFound) {
-                break;
+            // Reignite campfire if there was one underneath
+            Campfire fire = campfireCells.get(y * width + x);
+            if (fire != null && fire.exists() && !fire.isOn()) {
+                extinguishCampfire(fire);
             }
             
             x += dx;
@@ -406,35 +900,164 @@ public class Board {
         }
     }
     
+    /**
+     * Checks if updateObstacles and cleanDestroyedBlocks have nothing to do,
+     * ignoring the campfire timers: no ice block is waiting to melt on a hot tile
+     * and no destroyed block is waiting to be recycled.
+     * @return true if the obstacles are settled, false otherwise
+     */
+    boolean obstaclesSettled() {
+        if (destroyedCount > 0) {
+            return false;
+        }
+        syncObstacles();
+        for (int i = 0; i < hotTileStore.size(); i++) {
+            if (hotTileStore.hasFlag(i, EntityStore.ACTIVE) && hasIceBlock(hotTileStore.getPosition(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Updates all obstacles on the board.
+     * Campfires and hot tiles are updated in loops over their stores.
      */
     public void updateObstacles() {
-        for (Campfire fire : campfires) {
-            if (fire.exists()) {
-                fire.update();
+        syncObstacles();
+        if (timers == null) {
+            for (int i = 0; i < campfireStore.size(); i++) {
+                if (campfireStore.hasFlag(i, EntityStore.ACTIVE)) {
+                    Campfire.update(campfireStore, i);
+                    refreshCampfire(campfires.get(i));
+                }
             }
         }
-        for (HotTile tile : hotTiles) {
-            if (tile.exists()) {
-                tile.meltIceBlockIfPresent(this);
+        for (int i = 0; i < hotTileStore.size(); i++) {
+            if (hotTileStore.hasFlag(i, EntityStore.ACTIVE)) {
+                destroyIceBlockAt(hotTileStore.getX(i), hotTileStore.getY(i));
             }
         }
     }
     
+    /**
+     * Rebuilds the stores of the campfires and the hot tiles if their lists changed since they were built.
+     */
+    private void syncObstacles() {
+        if (campfireVersion != campfires.getVersion()) {
+            campfireStore.rebuild(campfires);
+            campfireVersion = campfires.getVersion();
+        }
+        if (hotTileVersion != hotTiles.getVersion()) {
+            hotTileStore.rebuild(hotTiles);
+            hotTileVersion = hotTiles.getVersion();
+        }
+    }
+    
+    /**
+     * Takes an ice block from the pool, or creates one if every block is in use,
+     * and adds it at the end of the listed blocks.
+     * @param x the horizontal position of the block
+     * @param y the vertical position of the block
+     * @return the listed block, existing at that position
+     */
+    private IceBlock acquireIceBlock(int x, int y) {
+        if (iceCount == iceSlots.length) {
+            iceSlots = Arrays.copyOf(iceSlots, iceSlots.length * 2);
+        }
+        IceBlock block = iceSlots[iceCount];
+        if (block == null) {
+            block = new IceBlock(this);
+            block.moveTo(iceStore);
+            iceSlots[iceCount] = block;
+        }
+        block.place(x, y);
+        block.poolSlot = iceCount;
+        iceCount++;
+        return block;
+    }
+    
+    /**
+     * Records that a listed ice block was destroyed so the next cleanup recycles it.
+     * @param block the destroyed block
+     */
+    void iceBlockDestroyed(IceBlock block) {
+        if (block.poolSlot < 0) {
+            return;
+        }
+        if (destroyedCount == destroyedBlocks.length) {
+            destroyedBlocks = Arrays.copyOf(destroyedBlocks, destroyedBlocks.length * 2);
+        }
+        destroyedBlocks[destroyedCount++] = block;
+    }
+    
     /**
      * Removes destroyed ice blocks from the ice blocks list.
+     * Only the blocks destroyed since the last cleanup are visited: each one is swapped
+     * with the last listed block and goes back to the pool.
      */
     public void cleanDestroyedBlocks() {
-        iceBlocks.removeIf(block -> !block.exists());
+        for (int i = 0; i < destroyedCount; i++) {
+            IceBlock block = destroyedBlocks[i];
+            destroyedBlocks[i] = null;
+            if (block.exists() || block.poolSlot < 0) {
+                continue; // Created again or already recycled
+            }
+            unregisterIceBlock(block);
+            
+            int slot = block.poolSlot;
+            IceBlock last = iceSlots[--iceCount];
+            iceSlots[slot] = last;
+            last.poolSlot = slot;
+            iceSlots[iceCount] = block;
+            block.poolSlot = -1;
+        }
+        destroyedCount = 0;
+    }
+    
+    /**
+     * Sends every listed ice block back to the pool and removes them from the cell index.
+     */
+    private void releaseAllIceBlocks() {
+        for (int i = 0; i < iceCount; i++) {
+            unregisterIceBlock(iceSlots[i]);
+            iceSlots[i].poolSlot = -1;
+        }
+        iceCount = 0;
+        Arrays.fill(destroyedBlocks, 0, destroyedCount, null);
+        destroyedCount = 0;
+    }
+    
+    /**
+     * Removes an ice block from the cell index if it is still the one registered there.
+     * @param block the ice block to unregister
+     */
+    private void unregisterIceBlock(IceBlock block) {
+        int position = block.getPackedPosition();
+        if (isValidPosition(position) && iceBlockCells.get(cellOf(position)) == block) {
+            iceBlockCells.set(cellOf(position), null);
+            setIce(Position.unpackX(position), Position.unpackY(position), false);
+        }
     }
     
     /**
      * Gets the list of all ice blocks on the board.
-     * @return the ArrayList of ice blocks
+     * It is a read-only view of the pool that always shows the current blocks, some of them
+     * may be destroyed until the next cleanup.
+     * @return the list of ice blocks
      */
-    public ArrayList<IceBlock> getIceBlocks() {
-        return iceBlocks;
+    public List<IceBlock> getIceBlocks() {
+        return iceBlockView;
+    }
+    
+    /**
+     * Gets the journal of the changes made to the board cells since the level was loaded.
+     * Ice blocks created or destroyed (also by hot tiles and enemies), campfires put out or
+     * lit again and added walls or hot tiles are recorded in it.
+     * @return the change journal
+     */
+    public ChangeJournal getJournal() {
+        return journal;
     }
     
     /**
@@ -457,7 +1080,35 @@ public class Board {
      * Removes all ice blocks from the board.
      */
     public void clearAllIceBlocks() {
-        iceBlocks.clear();
+        releaseAllIceBlocks();
+    }
+    
+    /**
+     * Adds a wall at the specified position.
+     * @param x the horizontal position
+     * @param y the vertical position
+     */
+    public void addWall(int x, int y) {
+        if (!isValidPosition(x, y) || hasIceBlock(x, y) || walls.get(y * width + x)) {
+            return;
+        }
+        recordChange(y * width + x, ChangeJournal.WALL, 0, 1);
+        ownSharedLayers();
+        walls.set(y * width + x);
+        wallColumns.set(x * height + y);
+        blocked.set(y * width + x);
+    }
+    
+    /**
+     * Adds a new ice block at the specified position if the cell is free.
+     * @param x the horizontal position
+     * @param y the vertical position
+     */
+    public void addIceBlock(int x, int y) {
+        if (!canMoveTo(x, y)) {
+            return;
+        }
+        placeIceBlock(acquireIceBlock(x, y), x, y);
     }
     
     /**
@@ -466,13 +1117,29 @@ public class Board {
      * @param y the vertical position
      */
     public void addCampfire(int x, int y) {
-        campfires.add(new Campfire(x, y));
+        Campfire fire = new Campfire(x, y);
+        campfires.add(fire);
+        if (isValidPosition(x, y)) {
+            campfireCells.set(y * width + x, fire);
+            refreshCampfire(fire);
+        }
     }
     
     /**
      * Removes all campfires from the board.
      */
     public void clearAllCampfires() {
+        for (Campfire fire : campfires) {
+            int position = fire.getPackedPosition();
+            if (isValidPosition(position)) {
+                int cell = cellOf(position);
+                campfireCells.set(cell, null);
+                if (litCampfires.get(cell)) {
+                    recordChange(cell, ChangeJournal.CAMPFIRE, 1, 0);
+                    litCampfires.clear(cell);
+                }
+            }
+        }
         campfires.clear();
     }
     
@@ -483,12 +1150,43 @@ public class Board {
      */
     public void addHotTile(int x, int y) {
         hotTiles.add(new HotTile(x, y));
+        if (isValidPosition(x, y) && !hotTileCells.get(y * width + x)) {
+            recordChange(y * width + x, ChangeJournal.HOT_TILE, 0, 1);
+            ownSharedLayers();
+            hotTileCells.set(y * width + x);
+        }
     }
     
     /**
      * Removes all hot tiles from the board.
      */
     public void clearAllHotTiles() {
+        ownSharedLayers();
+        for (HotTile tile : hotTiles) {
+            int position = tile.getPackedPosition();
+            if (isValidPosition(position) && hotTileCells.get(cellOf(position))) {
+                recordChange(cellOf(position), ChangeJournal.HOT_TILE, 1, 0);
+                hotTileCells.clear(cellOf(position));
+            }
+        }
         hotTiles.clear();
     }
+    
+    /**
+     * Read-only list over the listed ice blocks of the pool.
+     */
+    private class IceBlockView extends AbstractList<IceBlock> {
+        @Override
+        public IceBlock get(int index) {
+            if (index < 0 || index >= iceCount) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + iceCount);
+            }
+            return iceSlots[index];
+        }
+        
+        @Override
+        public int size() {
+            return iceCount;
+        }
+    }
 }
\ No newline at end of file
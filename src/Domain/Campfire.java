@@ -9,9 +9,8 @@ package Domain;
  */
 public class Campfire extends Obstacle {
     
-    private boolean on; // Whether the fire is on
-    private int extinguishTimer; // Counter for reigniting
-    private final int TURN_ON_TIME = 20; // 20 updates to reignite
+    private static final int TURN_ON_TIME = 20; // 20 updates to reignite
+    long timer = -1; // handle of the reignite timer when the board has a timer wheel
     
     /**
      * Creates a new campfire at the specified position.
@@ -20,17 +19,40 @@ public class Campfire extends Obstacle {
      */
     public Campfire(int x, int y) {
         super(x, y, "CAMPFIRE", false, true);
-        this.on = true;
-        this.extinguishTimer = 0;
+        setFlag(EntityStore.ON, true); // Whether the fire is on
     }
     
     /**
      * Temporarily extinguishes the campfire.
      */
     public void extinguish() {
-        on = false;
-        lethal = false;
-        extinguishTimer = TURN_ON_TIME;
+        setFlag(EntityStore.ON | EntityStore.LETHAL, false);
+        setTimer(TURN_ON_TIME); // Counter for reigniting
+    }
+    
+    /**
+     * Recreates the campfire lit, as it is at the start of a level.
+     */
+    public void relight() {
+        create();
+        reignite();
+    }
+    
+    /**
+     * Reignites the campfire when its countdown ends.
+     * Used by boards that keep the countdown in a timer wheel instead of calling update.
+     */
+    void reignite() {
+        setFlag(EntityStore.ON | EntityStore.LETHAL, true);
+        setTimer(0);
+    }
+    
+    /**
+     * Gets the number of updates an extinguished campfire takes to reignite.
+     * @return the reignite time in updates
+     */
+    public int getTurnOnTime() {
+        return TURN_ON_TIME;
     }
     
     /**
@@ -38,7 +60,7 @@ public class Campfire extends Obstacle {
      * @return true if the fire is on, false if it's extinguished
      */
     public boolean isOn() {
-        return on;
+        return hasFlag(EntityStore.ON);
     }
     
     /**
@@ -46,12 +68,26 @@ public class Campfire extends Obstacle {
      */
     @Override
     public void update() {
-        if (!on && extinguishTimer > 0) {
-            extinguishTimer--;
+        EntityStore held = borrowStore();
+        update(held, borrowedSlot(held));
+        giveBack(held);
+    }
+    
+    /**
+     * Counts down the campfire of a store slot and reignites it when the countdown ends.
+     * @param store the store holding the campfire
+     * @param slot the slot of the campfire
+     * @return true if the campfire reignited, false otherwise
+     */
+    static boolean update(EntityStore store, int slot) {
+        int extinguishTimer = store.getTimer(slot);
+        if (!store.hasFlag(slot, EntityStore.ON) && extinguishTimer > 0) {
+            store.setTimer(slot, --extinguishTimer);
             if (extinguishTimer == 0) {
-                on = true;
-                lethal = true;
+                store.setFlag(slot, EntityStore.ON | EntityStore.LETHAL, true);
+                return true;
             }
         }
+        return false;
     }
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package Domain;
+
+import java.util.Arrays;
+
+/**
+ * Append-only record of the changes made to the cells of a board.
+ * Every entry has the cell index (row by row), the layer that changed and its old and new value,
+ * so renderers, network sync, AI caches or replays can follow the board without rescanning it.
+ * Each reader keeps its own position and reads the entries from there up to size().
+ * The journal also keeps the set of cells changed since it was last drained, without repetitions.
+ * Entries are stored in primitive arrays that only grow, so recording a change doesn't allocate
+ * once the journal has reached its usual size.
+ */
+public class ChangeJournal {
+    public static final int WALL = 0;
+    public static final int ICE = 1;
+    public static final int CAMPFIRE = 2; // lit campfire
+    public static final int HOT_TILE = 3;
+
+    private int[] cells;
+    private byte[] layers;
+    private byte[] oldValues;
+    private byte[] newValues;
+    private int size;
+    private int epoch;
+    private final BitLayer dirty;
+    private int[] dirtyCells;
+    private int dirtyCount;
+
+    /**
+     * Creates an empty journal.
+     * @param cellCount the number of cells of the board
+     */
+    public ChangeJournal(int cellCount) {
+        this.cells = new int[64];
+        this.layers = new byte[64];
+        this.oldValues = new byte[64];
+        this.newValues = new byte[64];
+        this.size = 0;
+        this.epoch = 0;
+        this.dirty = new BitLayer(cellCount);
+        this.dirtyCells = new int[64];
+        this.dirtyCount = 0;
+    }
+
+    /**
+     * Appends a change and marks its cell as dirty.
+     * @param cell the cell index
+     * @param layer WALL, ICE, CAMPFIRE or HOT_TILE
+     * @param oldValue the value before the change
+     * @param newValue the value after the change
+     */
+    public void record(int cell, int layer, int oldValue, int newValue) {
+        if (size == cells.length) {
+            int capacity = size * 2;
+            cells = Arrays.copyOf(cells, capacity);
+            layers = Arrays.copyOf(layers, capacity);
+            oldValues = Arrays.copyOf(oldValues, capacity);
+            newValues = Arrays.copyOf(newValues, capacity);
+        }
+        cells[size] = cell;
+        layers[size] = (byte) layer;
+        oldValues[size] = (byte) oldValue;
+        newValues[size] = (byte) newValue;
+        size++;
+        markDirty(cell);
+    }
+
+    /**
+     * Gets the number of entries recorded since the journal was created or cleared.
+     * @return the number of entries, the next entry will have this index
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the cell of an entry.
+     * @param index the entry index
+     * @return the cell index, row by row
+     */
+    public int getCell(int index) {
+        checkIndex(index);
+        return cells[index];
+    }
+
+    /**
+     * Gets the layer of an entry.
+     * @param index the entry index
+     * @return WALL, ICE, CAMPFIRE or HOT_TILE
+     */
+    public int getLayer(int index) {
+        checkIndex(index);
+        return layers[index];
+    }
+
+    /**
+     * Gets the value a cell had in the layer before the change.
+     * @param index the entry index
+     * @return the old value, 1 if the cell had the element and 0 otherwise
+     */
+    public int getOldValue(int index) {
+        checkIndex(index);
+        return oldValues[index];
+    }
+
+    /**
+     * Gets the value a cell has in the layer after the change.
+     * @param index the entry index
+     * @return the new value, 1 if the cell has the element and 0 otherwise
+     */
+    public int getNewValue(int index) {
+        checkIndex(index);
+        return newValues[index];
+    }
+
+    /**
+     * Gets how many times the journal has been cleared.
+     * Readers that see a different epoch must forget their position and read the whole board again.
+     * @return the current epoch
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Removes every entry and dirty cell and starts a new epoch.
+     * Used when the board changes in bulk, for example when a level is reset.
+     */
+    public void clear() {
+        size = 0;
+        clearDirtyCells();
+        epoch++;
+    }
+
+    /**
+     * Marks a cell as changed without recording an entry.
+     * @param cell the cell index
+     */
+    public void markDirty(int cell) {
+        if (dirty.get(cell)) {
+            return;
+        }
+        dirty.set(cell);
+        if (dirtyCount == dirtyCells.length) {
+            dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+        }
+        dirtyCells[dirtyCount++] = cell;
+    }
+
+    /**
+     * Gets the number of cells changed since the dirty cells were last drained.
+     * @return the number of dirty cells
+     */
+    public int getDirtyCellCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Moves the dirty cells to an array and removes them from the set.
+     * If the array is too small the remaining cells stay in the set for the next call.
+     * @param destination the array that receives the cell indexes
+     * @return the number of cells written
+     */
+    public int drainDirtyCells(int[] destination) {
+        int count = Math.min(destination.length, dirtyCount);
+        int first = dirtyCount - count;
+        for (int i = 0; i < count; i++) {
+            int cell = dirtyCells[first + i];
+            destination[i] = cell;
+            dirty.clear(cell);
+        }
+        dirtyCount = first;
+        return count;
+    }
+
+    /**
+     * Removes every dirty cell without reading them.
+     */
+    public void clearDirtyCells() {
+        for (int i = 0; i < dirtyCount; i++) {
+            dirty.clear(dirtyCells[i]);
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Checks that an entry index is valid.
+     * @param index the entry index
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Entry: " + index + ", size: " + size);
+        }
+    }
+}
\ No newline at end of file
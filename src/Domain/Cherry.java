@@ -1,44 +1,97 @@
 package Domain;
 
-import java.util.Random;
-
 /**
  * Represents a cherry fruit in the game.
  * Cherries are partially static fruits that teleport to random positions
  * every 20 seconds and they are worth 150 points.
  */
 public class Cherry extends Fruit {
-    private Random random;
-    private int teleportCounter;
+    private GameRandom random;
     private final int TELEPORT_INTERVAL = 40; // Teleports every 40 updates
+    long timer = -1; // handle of the teleport timer when a game counts it down
+    int timerId = -1; // id of the cherry among the timed cherries of its game
     
     /**
      * Creates a new cherry at the specified position.
+     * It gets its own generator, seeded from the system time.
      * @param x the horizontal position on the board
      * @param y the vertical position on the board
      */
     public Cherry(int x, int y) {
-        super(x, y, "CHERRY", 150);
-        this.random = new Random();
-        this.teleportCounter = 0;
+        this(x, y, new GameRandom(System.nanoTime()));
+    }
+    
+    /**
+     * Creates a new cherry at the specified position that teleports with a given generator.
+     * @param x the horizontal position on the board
+     * @param y the vertical position on the board
+     * @param random the random generator, usually the one of the game
+     */
+    public Cherry(int x, int y, GameRandom random) {
+        super(x, y, CHERRY, 150);
+        this.random = random;
     }
     
     /**
-     * Teleport the cherry to a random valid position on the board.
+     * Gets the number of updates between two teleports.
+     * @return the teleport interval
+     */
+    public int getTeleportInterval() {
+        return TELEPORT_INTERVAL;
+    }
+    
+    /**
+     * Makes the cherry teleport with another generator.
+     * @param random the random generator, usually the one of the game
+     */
+    @Override
+    void setRandom(GameRandom random) {
+        this.random = random;
+    }
+    
+    /**
+     * Counts one update and teleports the cherry to a random valid position on the board
+     * every TELEPORT_INTERVAL updates.
      * @param board the game board used to check for valid positions to move
      */
     public void teleport(Board board) {
-        if (collected) {
+        if (isCollected()) {
             return; // Don't teleport if already collected
         }
         
-        teleportCounter++;
+        int teleportCounter = getTimer() + 1;
         
         if (teleportCounter < TELEPORT_INTERVAL) {
+            setTimer(teleportCounter);
             return;
         }
         
-        teleportCounter = 0;
+        setTimer(0);
+        teleportNow(board);
+    }
+    
+    /**
+     * Teleports the cherry to a random valid position on the board right away.
+     * Used by games that keep the countdown in a timer wheel instead of calling teleport every update.
+     * @param board the game board used to check for valid positions to move
+     */
+    public void teleportNow(Board board) {
+        EntityStore held = borrowStore();
+        teleportNow(held, borrowedSlot(held), board, random);
+        giveBack(held);
+    }
+    
+    /**
+     * Teleports the cherry of a store slot to a random valid position on the board.
+     * @param store the store holding the cherry
+     * @param slot the slot of the cherry
+     * @param board the game board used to check for valid positions to move
+     * @param random the random generator of the cherry
+     */
+    static void teleportNow(EntityStore store, int slot, Board board, GameRandom random) {
+        if (!store.hasFlag(slot, EntityStore.ACTIVE)) {
+            return;
+        }
         
         // Try to find a valid position to teleport to
         int attempts = 0;
@@ -49,11 +102,8 @@ public class Cherry extends Fruit {
             int newY = 1 + random.nextInt(board.getHeight() - 2);
             
             // Check that it's a valid and empty position
-            if (board.isValidPosition(newX, newY) && 
-                !board.hasWall(newX, newY) && 
-                !board.hasIceBlock(newX, newY)) {
-                position.setX(newX);
-                position.setY(newY);
+            if (board.canMoveTo(newX, newY)) {
+                store.setPosition(slot, newX, newY);
                 break;
             }
             
@@ -0,0 +1,54 @@
+package Domain;
+
+/**
+ * Sparse grid that stores one object reference per board cell.
+ * Cells are numbered row by row and grouped in chunks of 4096 cells,
+ * a chunk is only allocated when something is stored in it.
+ * @param <T> the type of object stored in the cells
+ */
+public class ChunkedGrid<T> {
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    
+    private final int size;
+    private final Object[][] chunks;
+    
+    /**
+     * Creates an empty grid.
+     * @param size the number of cells of the grid
+     */
+    public ChunkedGrid(int size) {
+        this.size = size;
+        this.chunks = new Object[(size + CHUNK_MASK) >>> CHUNK_SHIFT][];
+    }
+    
+    /**
+     * Gets the object stored in a cell.
+     * @param index the cell index
+     * @return the stored object, or null if the cell is empty
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Object[] chunk = chunks[index >>> CHUNK_SHIFT];
+        return chunk == null ? null : (T) chunk[index & CHUNK_MASK];
+    }
+    
+    /**
+     * Stores an object in a cell, allocating its chunk if needed.
+     * @param index the cell index
+     * @param value the object to store, or null to empty the cell
+     */
+    public void set(int index, T value) {
+        Object[] chunk = chunks[index >>> CHUNK_SHIFT];
+        if (chunk == null) {
+            if (value == null) {
+                return;
+            }
+            int chunkStart = index & ~CHUNK_MASK;
+            chunk = new Object[Math.min(CHUNK_SIZE, size - chunkStart)];
+            chunks[index >>> CHUNK_SHIFT] = chunk;
+        }
+        chunk[index & CHUNK_MASK] = value;
+    }
+}
\ No newline at end of file
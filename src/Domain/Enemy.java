@@ -4,9 +4,24 @@ package Domain;
  * Abstract class for all enemies in the game.
  * Enemies eliminate the player on contact and move according to their specific behaviors.
  */
-public abstract class Enemy {
-    protected Position position;
-    protected String type;
+public abstract class Enemy extends Entity {
+    public static final int TROLL = 0;
+    public static final int POT = 1;
+    public static final int SQUID = 2;
+    public static final int KIND_COUNT = 3;
+    
+    private static final String[] KIND_NAMES = {"TROLL", "POT", "SQUID"};
+    private static final Class<?>[] KIND_CLASSES = {Troll.class, Pot.class, OrangeSquid.class};
+    
+    /**
+     * Creates a new enemy of a kind at the specified position.
+     * @param x the horizontal position on the board
+     * @param y the vertical position on the board
+     * @param kind the kind of enemy: TROLL, POT or SQUID
+     */
+    public Enemy(int x, int y, int kind) {
+        this(x, y, KIND_NAMES[kind]);
+    }
     
     /**
      * Creates a new enemy at the specified position.
@@ -15,24 +30,39 @@ public abstract class Enemy {
      * @param type the type of enemy: "TROLL", "POT" or "SQUID"
      */
     public Enemy(int x, int y, String type) {
-        this.position = new Position(x, y);
-        this.type = type;
+        super(x, y, type, kindOf(type), EntityStore.ACTIVE | EntityStore.LETHAL);
+    }
+    
+    /**
+     * Gets the kind constant of an enemy type name.
+     * @param type the type of enemy: "TROLL", "POT" or "SQUID"
+     * @return TROLL, POT or SQUID, or -1 if the name is not an enemy
+     */
+    public static int kindOf(String type) {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            if (KIND_NAMES[kind].equals(type)) {
+                return kind;
+            }
+        }
+        return -1;
     }
     
     /**
-     * Gets the current position of this enemy on the board.
-     * @return the position of the enemy
+     * Gets the kind the stores use to update this enemy, only set when its class is exactly the class of its kind.
+     * @return the kind of the enemy class, or -1
      */
-    public Position getPosition() {
-        return position;
+    @Override
+    int behaviorKind() {
+        return kind >= 0 && getClass() == KIND_CLASSES[kind] ? kind : -1;
     }
     
     /**
-     * Gets the type of this enemy.
-     * @return the enemy type: "TROLL", "POT" or "SQUID"
+     * Gets the type name of an enemy kind.
+     * @param kind TROLL, POT or SQUID
+     * @return "TROLL", "POT" or "SQUID"
      */
-    public String getType() {
-        return type;
+    public static String kindName(int kind) {
+        return KIND_NAMES[kind];
     }
     
     /**
@@ -41,8 +71,25 @@ public abstract class Enemy {
      * @param newY the new vertical position
      */
     public void move(int newX, int newY) {
-        position.setX(newX);
-        position.setY(newY);
+        setPackedPosition(Position.pack(newX, newY));
+    }
+    
+    /**
+     * Puts the enemy back to its starting state at a position, used to restart a level
+     * without creating new enemies.
+     * @param x the horizontal starting position
+     * @param y the vertical starting position
+     */
+    public void reset(int x, int y) {
+        setPackedPosition(Position.pack(x, y));
+    }
+    
+    /**
+     * Lets the enemy chase a target, for the enemies that chase one.
+     * Games call it for every enemy they use, so all their enemies chase their player.
+     * @param target the ice cream to chase
+     */
+    public void setTarget(IceCream target) {
     }
     
     /**
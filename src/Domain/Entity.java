@@ -0,0 +1,281 @@
+package Domain;
+
+/**
+ * Base class of the elements placed on the board that a game keeps in an EntityStore:
+ * enemies, fruits and obstacles.
+ * An entity is a view over a slot of a store, its position, flags and counters live
+ * in the store arrays. An entity that is in no store, because it was just created or
+ * a game stopped using it, keeps those values in its own fields, and moves them to a
+ * game's store when the game starts using it.
+ * The Position object of an entity is only created when getPosition is called,
+ * the game itself works with the packed positions of the store.
+ */
+public abstract class Entity {
+    private static final ThreadLocal<EntityStore> BENCH = ThreadLocal.withInitial(() -> new EntityStore(1));
+    
+    protected String type;
+    protected int kind;
+    EntityStore store; // null while the entity is in no store, its values are then in the fields below
+    int slot;
+    private int packedPosition;
+    private int flags;
+    private int timer;
+    private int state;
+    private Position position; // view over the position of the entity, created when asked for
+    
+    /**
+     * Creates an entity that is in no store yet.
+     * @param x the horizontal position on the board
+     * @param y the vertical position on the board
+     * @param type the type name of the entity
+     * @param kind the kind of the entity, or -1 for a type without a kind
+     * @param flags the initial state flags, see EntityStore
+     */
+    protected Entity(int x, int y, String type, int kind, int flags) {
+        this.type = type;
+        this.kind = kind;
+        this.packedPosition = Position.pack(x, y);
+        this.flags = flags;
+    }
+    
+    /**
+     * Gets the kind the stores use to pick the code that updates this entity. It is only
+     * the kind of the entity when its class is exactly the class of the kind, a subclass
+     * or a class with a borrowed type name gets -1 and is updated through its own methods.
+     * @return the kind of the entity class, or -1
+     */
+    int behaviorKind() {
+        return -1;
+    }
+    
+    /**
+     * Moves the data of this entity to the end of another store, the old slot is left behind.
+     * @param target the store that will hold the entity
+     */
+    void moveTo(EntityStore target) {
+        int index;
+        if (store == null) {
+            index = target.add(this, behaviorKind(), packedPosition, flags);
+            target.setTimer(index, timer);
+            target.setState(index, state);
+        } else {
+            index = target.copy(this, store, slot);
+        }
+        store = target;
+        slot = index;
+    }
+    
+    /**
+     * Takes the data of this entity out of its store into its own fields, the slot is left behind.
+     */
+    void detach() {
+        packedPosition = store.getPosition(slot);
+        flags = store.getFlags(slot);
+        timer = store.getTimer(slot);
+        state = store.getState(slot);
+        store = null;
+        slot = 0;
+    }
+    
+    /**
+     * Gets a store slot with the data of this entity, to run the per-slot code of its kind on it.
+     * An entity in no store gets the slot 0 of a store of the thread, filled with its values.
+     * Call giveBack when done, then borrowedSlot tells the slot to use.
+     * @return the store of the entity or the store of the thread
+     */
+    EntityStore borrowStore() {
+        if (store != null) {
+            return store;
+        }
+        EntityStore bench = BENCH.get();
+        bench.clear();
+        moveTo(bench);
+        store = null;
+        return bench;
+    }
+    
+    /**
+     * Gets the slot of this entity in a store returned by borrowStore.
+     * @param borrowed the store returned by borrowStore
+     * @return the slot holding the data of the entity
+     */
+    int borrowedSlot(EntityStore borrowed) {
+        return borrowed == store ? slot : 0;
+    }
+    
+    /**
+     * Keeps the data changed in a store returned by borrowStore.
+     * @param borrowed the store returned by borrowStore
+     */
+    void giveBack(EntityStore borrowed) {
+        if (borrowed != store) {
+            store = borrowed;
+            detach();
+            borrowed.clear();
+        }
+    }
+    
+    /**
+     * Gets the current position of this entity on the board.
+     * @return the position of the entity
+     */
+    public Position getPosition() {
+        if (position == null) {
+            position = new StoredPosition(this);
+        }
+        return position;
+    }
+    
+    /**
+     * Gets the current position of this entity packed in an int, see Position.pack.
+     * @return the packed position of the entity
+     */
+    public int getPackedPosition() {
+        return store == null ? packedPosition : store.getPosition(slot);
+    }
+    
+    /**
+     * Moves this entity to a packed position.
+     * @param packedPosition the new position, x | y << 16
+     */
+    protected void setPackedPosition(int packedPosition) {
+        if (store == null) {
+            this.packedPosition = packedPosition;
+        } else {
+            store.setPosition(slot, packedPosition);
+        }
+    }
+    
+    /**
+     * Gets the type of this entity.
+     * @return the type name
+     */
+    public String getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the kind of this entity, cheaper to compare than the type.
+     * @return the kind constant of the entity class, or -1 for a type without a kind
+     */
+    public int getKind() {
+        return kind;
+    }
+    
+    /**
+     * Checks if the entity has a state flag.
+     * @param flag EntityStore.ACTIVE, SOLID, LETHAL or ON
+     * @return true if the flag is set, false otherwise
+     */
+    protected boolean hasFlag(int flag) {
+        return store == null ? (flags & flag) != 0 : store.hasFlag(slot, flag);
+    }
+    
+    /**
+     * Sets or clears a state flag of the entity.
+     * @param flag EntityStore.ACTIVE, SOLID, LETHAL or ON
+     * @param value true to set the flag, false to clear it
+     */
+    protected void setFlag(int flag, boolean value) {
+        if (store != null) {
+            store.setFlag(slot, flag, value);
+        } else if (value) {
+            flags |= flag;
+        } else {
+            flags &= ~flag;
+        }
+    }
+    
+    /**
+     * Gets the timer of the entity.
+     * @return the counter of the kind
+     */
+    protected int getTimer() {
+        return store == null ? timer : store.getTimer(slot);
+    }
+    
+    /**
+     * Sets the timer of the entity.
+     * @param timer the new counter
+     */
+    protected void setTimer(int timer) {
+        if (store == null) {
+            this.timer = timer;
+        } else {
+            store.setTimer(slot, timer);
+        }
+    }
+    
+    /**
+     * Gets the state value of the entity.
+     * @return the state of the kind
+     */
+    protected int getStateValue() {
+        return store == null ? state : store.getState(slot);
+    }
+    
+    /**
+     * Sets the state value of the entity.
+     * @param state the new state
+     */
+    protected void setStateValue(int state) {
+        if (store == null) {
+            this.state = state;
+        } else {
+            store.setState(slot, state);
+        }
+    }
+    
+    /**
+     * Position whose coordinates are read from and written to an entity,
+     * so it follows the entity when it moves to another store.
+     */
+    private static class StoredPosition extends Position {
+        private final Entity entity;
+        
+        /**
+         * Creates the position view of an entity.
+         * @param entity the entity
+         */
+        StoredPosition(Entity entity) {
+            super(0, 0);
+            this.entity = entity;
+        }
+        
+        /**
+         * Gets the horizontal coordinate from the entity.
+         * @return the x coordinate
+         */
+        @Override
+        public int getX() {
+            return Position.unpackX(entity.getPackedPosition());
+        }
+        
+        /**
+         * Gets the vertical coordinate from the entity.
+         * @return the y coordinate
+         */
+        @Override
+        public int getY() {
+            return Position.unpackY(entity.getPackedPosition());
+        }
+        
+        /**
+         * Updates the horizontal coordinate of the entity.
+         * @param x the new x coordinate
+         */
+        @Override
+        public void setX(int x) {
+            entity.setPackedPosition(Position.pack(x, getY()));
+        }
+        
+        /**
+         * Updates the vertical coordinate of the entity.
+         * @param y the new y coordinate
+         */
+        @Override
+        public void setY(int y) {
+            entity.setPackedPosition(Position.pack(getX(), y));
+        }
+    }
+}
\ No newline at end of file
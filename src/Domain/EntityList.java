@@ -0,0 +1,34 @@
+package Domain;
+
+import java.util.ArrayList;
+
+/**
+ * List of the entities of a game or a board (fruits, enemies, campfires...), in their original order.
+ * It behaves like any ArrayList, but it also counts the replacements made with set,
+ * so together with the structural changes counted by the list the owner can tell when
+ * the list was changed from outside and rebuild its EntityStore and other indexes.
+ * @param <T> the type of the entities
+ */
+class EntityList<T extends Entity> extends ArrayList<T> {
+    private int replacements;
+    
+    /**
+     * Replaces an entity of the list.
+     * @param index the position of the entity
+     * @param entity the new entity
+     * @return the entity replaced
+     */
+    @Override
+    public T set(int index, T entity) {
+        replacements++;
+        return super.set(index, entity);
+    }
+    
+    /**
+     * Gets a number that changes every time the content of the list changes.
+     * @return the version of the list
+     */
+    int getVersion() {
+        return modCount + replacements;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,291 @@
+package Domain;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Structure-of-arrays storage for the entities of a game: enemies, fruits or obstacles.
+ * Every entity is a slot with its packed position, kind, state flags, a timer and a state value
+ * kept in parallel primitive arrays, so the update loops walk memory in order instead of
+ * jumping between objects. The Enemy, Fruit and Obstacle objects are thin views over a slot,
+ * they are kept for the UI, the tests and any code that prefers objects.
+ * The kind of a slot picks the code that updates it, it is only set for entities whose class
+ * is exactly the class of their kind, see Entity.behaviorKind.
+ * An entity that is not in a store keeps its values in its own fields.
+ */
+public class EntityStore {
+    public static final int ACTIVE = 1; // a fruit not collected or an obstacle that exists
+    public static final int SOLID = 2;
+    public static final int LETHAL = 4;
+    public static final int ON = 8; // a lit campfire
+    
+    private int[] positions; // packed, see Position.pack
+    private byte[] kinds;
+    private int[] flags;
+    private int[] timers; // counters of the kind: steps of a troll, updates until a campfire reignites...
+    private int[] states; // state of the kind: the direction of a troll
+    private Entity[] owners; // the view of every slot
+    private int size;
+    private EntityStore scratch; // the store the slots are rebuilt in, swapped with this one
+    
+    /**
+     * Creates an empty store.
+     * @param capacity the number of slots to allocate first, the store grows when needed
+     */
+    public EntityStore(int capacity) {
+        int initial = Math.max(1, capacity);
+        this.positions = new int[initial];
+        this.kinds = new byte[initial];
+        this.flags = new int[initial];
+        this.timers = new int[initial];
+        this.states = new int[initial];
+        this.owners = new Entity[initial];
+        this.size = 0;
+    }
+    
+    /**
+     * Adds a slot at the end of the store.
+     * @param owner the view of the slot
+     * @param kind the behavior kind of the entity, or -1 for an entity updated through its own methods
+     * @param position the packed position, x | y << 16
+     * @param flags the state flags
+     * @return the index of the new slot
+     */
+    int add(Entity owner, int kind, int position, int flags) {
+        if (size == positions.length) {
+            int capacity = size * 2;
+            positions = Arrays.copyOf(positions, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            this.flags = Arrays.copyOf(this.flags, capacity);
+            timers = Arrays.copyOf(timers, capacity);
+            states = Arrays.copyOf(states, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+        positions[size] = position;
+        kinds[size] = (byte) kind;
+        this.flags[size] = flags;
+        timers[size] = 0;
+        states[size] = 0;
+        owners[size] = owner;
+        return size++;
+    }
+    
+    /**
+     * Adds a copy of a slot of another store at the end of this one.
+     * @param owner the view of the slot
+     * @param from the store to copy from
+     * @param slot the slot to copy
+     * @return the index of the new slot
+     */
+    int copy(Entity owner, EntityStore from, int slot) {
+        int index = add(owner, from.kinds[slot], from.positions[slot], from.flags[slot]);
+        timers[index] = from.timers[slot];
+        states[index] = from.states[slot];
+        return index;
+    }
+    
+    /**
+     * Makes the store hold exactly the entities of a list, slot i for entity i.
+     * Entities that were in the store but are not in the list anymore take their
+     * values with them, so their views stay valid.
+     * @param entities the entities, in order
+     */
+    void rebuild(List<? extends Entity> entities) {
+        if (scratch == null) {
+            scratch = new EntityStore(Math.max(positions.length, entities.size()));
+        }
+        EntityStore next = scratch;
+        next.size = 0;
+        for (int i = 0; i < entities.size(); i++) {
+            entities.get(i).moveTo(next);
+        }
+        for (int i = 0; i < size; i++) {
+            if (owners[i].store == this) {
+                owners[i].detach();
+            }
+        }
+        swap(next);
+        for (int i = 0; i < size; i++) {
+            owners[i].store = this;
+        }
+        next.clear();
+    }
+    
+    /**
+     * Removes all the slots, the entities that were in them must not use the store anymore.
+     */
+    void clear() {
+        Arrays.fill(owners, 0, size, null);
+        size = 0;
+    }
+    
+    /**
+     * Exchanges the slots of this store with the slots of another one.
+     * @param other the other store
+     */
+    private void swap(EntityStore other) {
+        int[] positionColumn = positions;
+        positions = other.positions;
+        other.positions = positionColumn;
+        byte[] kindColumn = kinds;
+        kinds = other.kinds;
+        other.kinds = kindColumn;
+        int[] flagColumn = flags;
+        flags = other.flags;
+        other.flags = flagColumn;
+        int[] timerColumn = timers;
+        timers = other.timers;
+        other.timers = timerColumn;
+        int[] stateColumn = states;
+        states = other.states;
+        other.states = stateColumn;
+        Entity[] ownerColumn = owners;
+        owners = other.owners;
+        other.owners = ownerColumn;
+        int count = size;
+        size = other.size;
+        other.size = count;
+    }
+    
+    /**
+     * Gets the number of slots in use.
+     * @return the number of entities
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Gets the horizontal position of an entity.
+     * @param slot the entity slot
+     * @return the x coordinate
+     */
+    public int getX(int slot) {
+        return Position.unpackX(positions[slot]);
+    }
+    
+    /**
+     * Gets the vertical position of an entity.
+     * @param slot the entity slot
+     * @return the y coordinate
+     */
+    public int getY(int slot) {
+        return Position.unpackY(positions[slot]);
+    }
+    
+    /**
+     * Gets the packed position of an entity, two entities are on the same cell
+     * when their packed positions are equal.
+     * @param slot the entity slot
+     * @return the position, x | y << 16
+     */
+    public int getPosition(int slot) {
+        return positions[slot];
+    }
+    
+    /**
+     * Moves an entity.
+     * @param slot the entity slot
+     * @param x the new horizontal position
+     * @param y the new vertical position
+     */
+    public void setPosition(int slot, int x, int y) {
+        positions[slot] = Position.pack(x, y);
+    }
+    
+    /**
+     * Moves an entity to a packed position.
+     * @param slot the entity slot
+     * @param position the new position, x | y << 16
+     */
+    public void setPosition(int slot, int position) {
+        positions[slot] = position;
+    }
+    
+    /**
+     * Gets the kind of an entity, its meaning depends on what the store holds.
+     * @param slot the entity slot
+     * @return the behavior kind, for example Enemy.TROLL or Fruit.CHERRY, or -1 for an entity updated through its own methods
+     */
+    public int getKind(int slot) {
+        return kinds[slot];
+    }
+    
+    /**
+     * Gets the state flags of an entity.
+     * @param slot the entity slot
+     * @return the flags: ACTIVE, SOLID, LETHAL and ON
+     */
+    public int getFlags(int slot) {
+        return flags[slot];
+    }
+    
+    /**
+     * Checks if an entity has a state flag.
+     * @param slot the entity slot
+     * @param flag ACTIVE, SOLID, LETHAL or ON
+     * @return true if the flag is set, false otherwise
+     */
+    public boolean hasFlag(int slot, int flag) {
+        return (flags[slot] & flag) != 0;
+    }
+    
+    /**
+     * Sets or clears a state flag of an entity.
+     * @param slot the entity slot
+     * @param flag ACTIVE, SOLID, LETHAL or ON
+     * @param value true to set the flag, false to clear it
+     */
+    void setFlag(int slot, int flag, boolean value) {
+        if (value) {
+            flags[slot] |= flag;
+        } else {
+            flags[slot] &= ~flag;
+        }
+    }
+    
+    /**
+     * Gets the timer of an entity.
+     * @param slot the entity slot
+     * @return the counter of the kind
+     */
+    public int getTimer(int slot) {
+        return timers[slot];
+    }
+    
+    /**
+     * Sets the timer of an entity.
+     * @param slot the entity slot
+     * @param timer the new counter
+     */
+    void setTimer(int slot, int timer) {
+        timers[slot] = timer;
+    }
+    
+    /**
+     * Gets the state value of an entity.
+     * @param slot the entity slot
+     * @return the state of the kind
+     */
+    public int getState(int slot) {
+        return states[slot];
+    }
+    
+    /**
+     * Sets the state value of an entity.
+     * @param slot the entity slot
+     * @param state the new state
+     */
+    void setState(int slot, int state) {
+        states[slot] = state;
+    }
+    
+    /**
+     * Gets the view of a slot.
+     * @param slot the entity slot
+     * @return the entity object over the slot
+     */
+    Entity getOwner(int slot) {
+        return owners[slot];
+    }
+}
\ No newline at end of file
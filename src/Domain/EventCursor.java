@@ -0,0 +1,113 @@
+package Domain;
+
+/**
+ * Position of one consumer in an EventStream.
+ * Each call to next moves to the following event and the getters return its fields
+ * until the next call. A cursor must be used by a single thread.
+ */
+public class EventCursor {
+    private final EventStream stream;
+    private long position;
+    private long lost;
+    private int type;
+    private int cell;
+    private int value;
+    private long tick;
+    
+    /**
+     * Creates a cursor.
+     * @param stream the stream to read
+     * @param position the number of the first event to read
+     */
+    EventCursor(EventStream stream, long position) {
+        this.stream = stream;
+        this.position = position;
+    }
+    
+    /**
+     * Moves to the next event.
+     * @return true if there was an event, false if the cursor has read every published event
+     */
+    public boolean next() {
+        while (true) {
+            long published = stream.getPublished();
+            if (position >= published) {
+                return false;
+            }
+            long oldest = published - stream.getCapacity();
+            if (position < oldest) {
+                // The writer went around the buffer, skip the events overwritten
+                lost += oldest - position;
+                position = oldest;
+            }
+            boolean valid = stream.read(position, this);
+            position++;
+            if (valid) {
+                return true;
+            }
+            lost++; // overwritten while it was being read
+        }
+    }
+    
+    /**
+     * Stores the fields of the event being read.
+     * @param type the event type
+     * @param cell the cell of the event
+     * @param value the value of the event
+     * @param tick the tick of the event
+     */
+    void load(int type, int cell, int value, long tick) {
+        this.type = type;
+        this.cell = cell;
+        this.value = value;
+        this.tick = tick;
+    }
+    
+    /**
+     * Gets the type of the current event.
+     * @return one of the event types of EventStream
+     */
+    public int getType() {
+        return type;
+    }
+    
+    /**
+     * Gets the cell of the current event.
+     * @return the cell index, row by row, or -1
+     */
+    public int getCell() {
+        return cell;
+    }
+    
+    /**
+     * Gets the value of the current event.
+     * @return the value, see the event types of EventStream
+     */
+    public int getValue() {
+        return value;
+    }
+    
+    /**
+     * Gets the tick of the current event.
+     * @return the number of updates of the game when it happened
+     */
+    public long getTick() {
+        return tick;
+    }
+    
+    /**
+     * Gets the number of events this cursor skipped because it fell too far behind.
+     * @return the lost events
+     */
+    public long getLost() {
+        return lost;
+    }
+    
+    /**
+     * Gets the number of events published and not read yet by this cursor.
+     * @return the pending events
+     */
+    public long getPending() {
+        return Math.max(0, stream.getPublished() - position);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package Domain;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stream of the events of a game: fruits collected, deaths, ice lines, campfires and the end of the game.
+ * Events are written by the thread that runs the game into a ring buffer of preallocated slots,
+ * every event is a type, a cell, a value and the tick it happened on, so emitting one doesn't allocate.
+ * Any number of consumers (the HUD, a replay writer, metrics...) read the stream with their own
+ * EventCursor, on any thread and without locks. The writer never waits for them: a consumer that
+ * falls more than a full buffer behind loses the oldest events and its cursor counts them.
+ */
+public class EventStream {
+    public static final int FRUIT_COLLECTED = 0; // cell of the fruit, value = points
+    public static final int PLAYER_DIED = 1; // cell of the player
+    public static final int ICE_CREATED = 2; // first cell of the line, value = blocks created
+    public static final int ICE_DESTROYED = 3; // first cell of the line, value = blocks destroyed
+    public static final int CAMPFIRE_EXTINGUISHED = 4; // cell of the campfire
+    public static final int CAMPFIRE_RELIT = 5; // cell of the campfire
+    public static final int GAME_WON = 6; // value = score
+    public static final int GAME_LOST = 7; // value = score
+    public static final int PAUSE_TOGGLED = 8; // value = 1 if paused, 0 if resumed
+    public static final int GAME_RESET = 9;
+    
+    private final int mask;
+    private final int[] types;
+    private final int[] cells;
+    private final int[] values;
+    private final long[] ticks;
+    private final AtomicLong claimed; // events whose slot the writer has started to write
+    private final AtomicLong published; // events completely written
+    private long tick;
+    
+    /**
+     * Creates an empty stream.
+     * @param capacity the number of events kept for slow consumers, rounded up to a power of two
+     */
+    public EventStream(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.types = new int[size];
+        this.cells = new int[size];
+        this.values = new int[size];
+        this.ticks = new long[size];
+        this.claimed = new AtomicLong();
+        this.published = new AtomicLong();
+    }
+    
+    /**
+     * Writes an event. Only the thread that runs the game may call it.
+     * @param type the event type, one of the constants of this class
+     * @param cell the cell where it happened, row by row, or -1
+     * @param value the value of the event, see the event types
+     */
+    public void emit(int type, int cell, int value) {
+        long sequence = published.get();
+        int slot = (int) sequence & mask;
+        claimed.set(sequence + 1);
+        VarHandle.storeStoreFence(); // readers must see the claim before the slot changes
+        types[slot] = type;
+        cells[slot] = cell;
+        values[slot] = value;
+        ticks[slot] = tick;
+        published.lazySet(sequence + 1);
+    }
+    
+    /**
+     * Sets the tick stamped on the next events.
+     * @param tick the number of updates of the game
+     */
+    void setTick(long tick) {
+        this.tick = tick;
+    }
+    
+    /**
+     * Creates a consumer that reads the events emitted from now on.
+     * @return a new cursor
+     */
+    public EventCursor subscribe() {
+        return new EventCursor(this, published.get());
+    }
+    
+    /**
+     * Gets the number of events emitted since the stream was created.
+     * @return the event count
+     */
+    public long getEventCount() {
+        return published.get();
+    }
+    
+    /**
+     * Gets the number of events kept for slow consumers.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+    
+    /**
+     * Copies an event into a cursor if it is still in the buffer.
+     * @param sequence the number of the event
+     * @param cursor the cursor that receives it
+     * @return true if the event was copied, false if the writer has already overwritten it
+     */
+    boolean read(long sequence, EventCursor cursor) {
+        int slot = (int) sequence & mask;
+        cursor.load(types[slot], cells[slot], values[slot], ticks[slot]);
+        VarHandle.loadLoadFence(); // the slot must be read before checking it wasn't reused
+        return claimed.get() - (mask + 1) <= sequence;
+    }
+    
+    /**
+     * Gets the number of events completely written, for the cursors.
+     * @return the published event count
+     */
+    long getPublished() {
+        return published.get();
+    }
+}
\ No newline at end of file
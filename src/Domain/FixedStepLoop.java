@@ -0,0 +1,143 @@
+package Domain;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed-timestep loop driver.
+ * The real time that passes is added to an accumulator and the loop runs one step for every
+ * full step interval in it, so the steps keep a fixed rate however long each iteration takes.
+ * After the steps of an iteration it calls the render callback once.
+ * When the loop falls far behind (a stall, a breakpoint) it runs at most a fixed number of
+ * catch-up steps and drops the rest of the time instead of running a long burst of steps.
+ *
+ * The loop can run on its own thread with run, or be driven headlessly with advance,
+ * passing the times of a test or a simulation.
+ */
+public class FixedStepLoop {
+    private final long stepNanos;
+    private final int maxCatchUpSteps;
+    private final LongConsumer step;
+    private final Runnable render;
+    private long lastTime;
+    private long accumulator;
+    private long stepCount;
+    private long droppedSteps;
+    
+    /**
+     * Creates a loop.
+     * @param stepNanos the nanoseconds of a step
+     * @param maxCatchUpSteps the maximum number of steps run by one iteration
+     * @param step the step, it receives the number of steps run before it
+     * @param render the callback run after the steps of an iteration, it can be null
+     */
+    public FixedStepLoop(long stepNanos, int maxCatchUpSteps, LongConsumer step, Runnable render) {
+        if (stepNanos <= 0) {
+            throw new IllegalArgumentException("Invalid step: " + stepNanos);
+        }
+        if (maxCatchUpSteps <= 0) {
+            throw new IllegalArgumentException("Invalid catch-up limit: " + maxCatchUpSteps);
+        }
+        this.stepNanos = stepNanos;
+        this.maxCatchUpSteps = maxCatchUpSteps;
+        this.step = step;
+        this.render = render;
+    }
+    
+    /**
+     * Starts counting time from the given moment, with an empty accumulator.
+     * @param now the current time in nanoseconds
+     */
+    public void start(long now) {
+        lastTime = now;
+        accumulator = 0;
+    }
+    
+    /**
+     * Adds the time passed since the previous call and runs the steps it covers.
+     * The render callback is called once if at least one step ran.
+     * @param now the current time in nanoseconds
+     * @return the number of steps run
+     */
+    public int advance(long now) {
+        accumulator += now - lastTime;
+        lastTime = now;
+        int steps = 0;
+        while (accumulator >= stepNanos && steps < maxCatchUpSteps) {
+            step.accept(stepCount++);
+            accumulator -= stepNanos;
+            steps++;
+        }
+        if (accumulator >= stepNanos) {
+            // Too far behind, forget the time that doesn't fit in the catch-up steps
+            droppedSteps += accumulator / stepNanos;
+            accumulator %= stepNanos;
+        }
+        if (steps > 0 && render != null) {
+            render.run();
+        }
+        return steps;
+    }
+    
+    /**
+     * Runs the loop on the calling thread with the system's nano time, sleeping between steps.
+     * It returns when the condition is false or the thread is interrupted.
+     * @param running the condition checked before every iteration
+     */
+    public void run(BooleanSupplier running) {
+        start(System.nanoTime());
+        while (running.getAsBoolean() && !Thread.currentThread().isInterrupted()) {
+            advance(System.nanoTime());
+            LockSupport.parkNanos(this, getNanosUntilNextStep());
+        }
+    }
+    
+    /**
+     * Gets the time left until the accumulator holds a full step.
+     * @return the nanoseconds until the next step
+     */
+    public long getNanosUntilNextStep() {
+        return Math.max(0, stepNanos - accumulator);
+    }
+    
+    /**
+     * Gets how far the loop is into the next step, renderers can use it to interpolate.
+     * @return a value in [0, 1)
+     */
+    public double getInterpolation() {
+        return (double) accumulator / stepNanos;
+    }
+    
+    /**
+     * Gets the number of steps run since the loop was created.
+     * @return the step count
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+    
+    /**
+     * Gets the number of steps dropped because the loop fell too far behind.
+     * @return the dropped steps
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+    
+    /**
+     * Gets the length of a step.
+     * @return the nanoseconds of a step
+     */
+    public long getStepNanos() {
+        return stepNanos;
+    }
+    
+    /**
+     * Gets the maximum number of steps run by one iteration.
+     * @return the catch-up limit
+     */
+    public int getMaxCatchUpSteps() {
+        return maxCatchUpSteps;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package Domain;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Triple buffer of frame snapshots between the simulation and a renderer.
+ * The simulation writes into its own back snapshot and publishes it by swapping it with the
+ * middle one, the renderer takes the middle one by swapping it with its front snapshot.
+ * Both swaps are a single atomic exchange, so neither side waits for the other: the simulation
+ * never blocks on a slow paint and the renderer always gets the newest complete frame.
+ * There must be a single thread publishing at a time and a single thread acquiring.
+ */
+public class FrameBuffer {
+    private static final int FRESH = 4; // set on the middle index when it has not been acquired yet
+    
+    private final FrameSnapshot[] frames;
+    private final AtomicInteger middle;
+    private int back; // only used by the publishing thread
+    private int front; // only used by the acquiring thread
+    
+    /**
+     * Creates a buffer with three empty snapshots.
+     */
+    public FrameBuffer() {
+        this.frames = new FrameSnapshot[] {new FrameSnapshot(), new FrameSnapshot(), new FrameSnapshot()};
+        this.front = 0;
+        this.middle = new AtomicInteger(1);
+        this.back = 2;
+    }
+    
+    /**
+     * Captures the state of a game and publishes it as the newest frame.
+     * It must be called by the thread that runs the game.
+     * @param game the game to capture
+     */
+    public void publish(Game game) {
+        frames[back].capture(game);
+        back = middle.getAndSet(back | FRESH) & ~FRESH;
+    }
+    
+    /**
+     * Gets the newest published frame. The snapshot stays unchanged until the next call,
+     * when it goes back to the simulation to be reused.
+     * @return the newest frame, or the previous one if nothing was published since the last call
+     */
+    public FrameSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & ~FRESH;
+        }
+        return frames[front];
+    }
+    
+    /**
+     * Checks if a frame was published since the last call to acquire.
+     * @return true if acquire would return a new frame
+     */
+    public boolean hasNewFrame() {
+        return (middle.get() & FRESH) != 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,335 @@
+package Domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Copy of everything a renderer needs to draw one frame of a game:
+ * the cells, the positions of the player, enemies and fruits, and the HUD numbers.
+ * The simulation fills snapshots and publishes them through a FrameBuffer, renderers only read them,
+ * so they can draw on another thread while the game keeps changing, without locks or torn frames.
+ * Snapshots keep their arrays between frames and only grow them when a game has more
+ * cells or entities than before, so capturing a frame doesn't allocate.
+ */
+public class FrameSnapshot {
+    public static final int WALL = 1;
+    public static final int ICE = 2;
+    public static final int HOT_TILE = 4;
+    public static final int CAMPFIRE = 8;
+    public static final int CAMPFIRE_LIT = 16;
+    
+    private int width;
+    private int height;
+    private byte[] cells;
+    
+    private int playerX;
+    private int playerY;
+    private boolean playerAlive;
+    private String playerFlavor;
+    
+    private int enemyCount;
+    private int[] enemyPositions; // packed, see Position.pack
+    private String[] enemyTypes;
+    private int[] enemyKinds;
+    
+    private int fruitCount;
+    private int[] fruitPositions; // packed, see Position.pack
+    private String[] fruitTypes;
+    private int[] fruitKinds;
+    
+    private int level;
+    private int score;
+    private int totalFruits;
+    private long timeRemaining;
+    private long tick;
+    private boolean paused;
+    private boolean gameWon;
+    private boolean gameLost;
+    
+    /**
+     * Creates an empty snapshot, it has no cells until it captures a game.
+     */
+    public FrameSnapshot() {
+        this.cells = new byte[0];
+        this.enemyPositions = new int[4];
+        this.enemyTypes = new String[4];
+        this.enemyKinds = new int[4];
+        this.fruitPositions = new int[16];
+        this.fruitTypes = new String[16];
+        this.fruitKinds = new int[16];
+    }
+    
+    /**
+     * Copies the state of a game into this snapshot.
+     * It must be called by the thread that runs the game, before the snapshot is published.
+     * @param game the game to copy
+     */
+    void capture(Game game) {
+        Board board = game.getBoard();
+        width = board.getWidth();
+        height = board.getHeight();
+        if (cells.length < width * height) {
+            cells = new byte[width * height];
+        }
+        board.writeCellFlags(cells);
+        
+        IceCream player = game.getPlayer();
+        playerX = Position.unpackX(player.getPackedPosition());
+        playerY = Position.unpackY(player.getPackedPosition());
+        playerAlive = player.isAlive();
+        playerFlavor = player.getFlavor();
+        
+        ArrayList<Enemy> enemies = game.getEnemies();
+        enemyCount = enemies.size();
+        if (enemyPositions.length < enemyCount) {
+            enemyPositions = Arrays.copyOf(enemyPositions, enemyCount);
+            enemyTypes = Arrays.copyOf(enemyTypes, enemyCount);
+            enemyKinds = Arrays.copyOf(enemyKinds, enemyCount);
+        }
+        for (int i = 0; i < enemyCount; i++) {
+            Enemy enemy = enemies.get(i);
+            enemyPositions[i] = enemy.getPackedPosition();
+            enemyTypes[i] = enemy.getType();
+            enemyKinds[i] = enemy.getKind();
+        }
+        
+        // Only the fruits not collected yet, in the level order, so a fruit keeps its index
+        // and the one drawn on top of a shared cell doesn't change when another one is collected
+        fruitCount = game.getRemainingFruits();
+        if (fruitPositions.length < fruitCount) {
+            fruitPositions = Arrays.copyOf(fruitPositions, fruitCount);
+            fruitTypes = Arrays.copyOf(fruitTypes, fruitCount);
+            fruitKinds = Arrays.copyOf(fruitKinds, fruitCount);
+        }
+        ArrayList<Fruit> fruits = game.getFruits();
+        int n = 0;
+        for (int i = 0; i < fruits.size() && n < fruitCount; i++) {
+            Fruit fruit = fruits.get(i);
+            if (!fruit.isCollected()) {
+                fruitPositions[n] = fruit.getPackedPosition();
+                fruitTypes[n] = fruit.getType();
+                fruitKinds[n] = fruit.getKind();
+                n++;
+            }
+        }
+        
+        level = game.getCurrentLevel();
+        score = player.getScore();
+        totalFruits = game.getTotalFruits();
+        timeRemaining = game.getTimeRemaining();
+        tick = game.getTickCount();
+        paused = game.isPaused();
+        gameWon = game.isGameWon();
+        gameLost = game.isGameLost();
+    }
+    
+    /**
+     * Gets the width of the board.
+     * @return the width in cells
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Gets the height of the board.
+     * @return the height in cells
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Gets the flags of a cell.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return a combination of WALL, ICE, HOT_TILE, CAMPFIRE and CAMPFIRE_LIT
+     */
+    public int getCell(int x, int y) {
+        return cells[y * width + x];
+    }
+    
+    /**
+     * Gets the horizontal position of the player.
+     * @return the player's x
+     */
+    public int getPlayerX() {
+        return playerX;
+    }
+    
+    /**
+     * Gets the vertical position of the player.
+     * @return the player's y
+     */
+    public int getPlayerY() {
+        return playerY;
+    }
+    
+    /**
+     * Checks if the player is alive.
+     * @return true if the player is alive
+     */
+    public boolean isPlayerAlive() {
+        return playerAlive;
+    }
+    
+    /**
+     * Gets the flavor of the player.
+     * @return "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     */
+    public String getPlayerFlavor() {
+        return playerFlavor;
+    }
+    
+    /**
+     * Gets the number of enemies.
+     * @return the number of enemies
+     */
+    public int getEnemyCount() {
+        return enemyCount;
+    }
+    
+    /**
+     * Gets the horizontal position of an enemy.
+     * @param index the enemy index, less than getEnemyCount
+     * @return the enemy's x
+     */
+    public int getEnemyX(int index) {
+        return Position.unpackX(enemyPositions[index]);
+    }
+    
+    /**
+     * Gets the vertical position of an enemy.
+     * @param index the enemy index, less than getEnemyCount
+     * @return the enemy's y
+     */
+    public int getEnemyY(int index) {
+        return Position.unpackY(enemyPositions[index]);
+    }
+    
+    /**
+     * Gets the type of an enemy.
+     * @param index the enemy index, less than getEnemyCount
+     * @return the enemy type
+     */
+    public String getEnemyType(int index) {
+        return enemyTypes[index];
+    }
+    
+    /**
+     * Gets the kind of an enemy.
+     * @param index the enemy index, less than getEnemyCount
+     * @return Enemy.TROLL, POT or SQUID, or -1 for another type
+     */
+    public int getEnemyKind(int index) {
+        return enemyKinds[index];
+    }
+    
+    /**
+     * Gets the number of fruits not collected yet.
+     * @return the number of fruits on the board
+     */
+    public int getFruitCount() {
+        return fruitCount;
+    }
+    
+    /**
+     * Gets the horizontal position of a fruit.
+     * @param index the fruit index, less than getFruitCount
+     * @return the fruit's x
+     */
+    public int getFruitX(int index) {
+        return Position.unpackX(fruitPositions[index]);
+    }
+    
+    /**
+     * Gets the vertical position of a fruit.
+     * @param index the fruit index, less than getFruitCount
+     * @return the fruit's y
+     */
+    public int getFruitY(int index) {
+        return Position.unpackY(fruitPositions[index]);
+    }
+    
+    /**
+     * Gets the type of a fruit.
+     * @param index the fruit index, less than getFruitCount
+     * @return the fruit type
+     */
+    public String getFruitType(int index) {
+        return fruitTypes[index];
+    }
+    
+    /**
+     * Gets the kind of a fruit.
+     * @param index the fruit index, less than getFruitCount
+     * @return Fruit.BANANA, GRAPE, PINEAPPLE or CHERRY, or -1 for another type
+     */
+    public int getFruitKind(int index) {
+        return fruitKinds[index];
+    }
+    
+    /**
+     * Gets the level number.
+     * @return the level
+     */
+    public int getLevel() {
+        return level;
+    }
+    
+    /**
+     * Gets the player's score.
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+    
+    /**
+     * Gets the number of fruits of the level.
+     * @return the total number of fruits
+     */
+    public int getTotalFruits() {
+        return totalFruits;
+    }
+    
+    /**
+     * Gets the time left when the frame was captured.
+     * @return the remaining milliseconds
+     */
+    public long getTimeRemaining() {
+        return timeRemaining;
+    }
+    
+    /**
+     * Gets the number of updates of the game when the frame was captured.
+     * @return the tick count
+     */
+    public long getTick() {
+        return tick;
+    }
+    
+    /**
+     * Checks if the game was paused.
+     * @return true if paused
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    /**
+     * Checks if the game was won.
+     * @return true if won
+     */
+    public boolean isGameWon() {
+        return gameWon;
+    }
+    
+    /**
+     * Checks if the game was lost.
+     * @return true if lost
+     */
+    public boolean isGameLost() {
+        return gameLost;
+    }
+}
\ No newline at end of file
@@ -5,12 +5,29 @@ package Domain;
  * Fruits are collectible items that give points to the player when he picks them up.
  * Each fruit type has different behaviors and point values.
  */
-public abstract class Fruit {
-    protected Position position;
-    protected boolean collected;
-    protected String type;
+public abstract class Fruit extends Entity {
+    public static final int BANANA = 0;
+    public static final int GRAPE = 1;
+    public static final int PINEAPPLE = 2;
+    public static final int CHERRY = 3;
+    public static final int KIND_COUNT = 4;
+    
+    private static final String[] KIND_NAMES = {"BANANA", "GRAPE", "PINEAPPLE", "CHERRY"};
+    private static final Class<?>[] KIND_CLASSES = {Banana.class, Grape.class, Pineapple.class, Cherry.class};
+    
     protected int points;
     
+    /**
+     * Creates a new fruit of a kind with a certain points value.
+     * @param x the horizontal position on the board
+     * @param y the vertical position on the board
+     * @param kind the kind of fruit: BANANA, GRAPE, PINEAPPLE or CHERRY
+     * @param points the number of points this fruit is worth
+     */
+    public Fruit(int x, int y, int kind, int points) {
+        this(x, y, KIND_NAMES[kind], points);
+    }
+    
     /**
      * Creates a new type fruit with a certain points value.
      * @param x the horizontal position on the board
@@ -19,18 +36,40 @@ public abstract class Fruit {
      * @param points the number of points this fruit is worth
      */
     public Fruit(int x, int y, String type, int points) {
-        this.position = new Position(x, y);
-        this.collected = false;
-        this.type = type;
+        super(x, y, type, kindOf(type), EntityStore.ACTIVE);
         this.points = points;
     }
     
     /**
-     * Gets the current position of this fruit on the board.
-     * @return the position of the fruit
+     * Gets the kind constant of a fruit type name.
+     * @param type the type of fruit: "BANANA", "GRAPE", "PINEAPPLE" or "CHERRY"
+     * @return BANANA, GRAPE, PINEAPPLE or CHERRY, or -1 if the name is not a fruit
+     */
+    public static int kindOf(String type) {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            if (KIND_NAMES[kind].equals(type)) {
+                return kind;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Gets the kind the stores use to update this fruit, only set when its class is exactly the class of its kind.
+     * @return the kind of the fruit class, or -1
      */
-    public Position getPosition() {
-        return position;
+    @Override
+    int behaviorKind() {
+        return kind >= 0 && getClass() == KIND_CLASSES[kind] ? kind : -1;
+    }
+    
+    /**
+     * Gets the type name of a fruit kind.
+     * @param kind BANANA, GRAPE, PINEAPPLE or CHERRY
+     * @return "BANANA", "GRAPE", "PINEAPPLE" or "CHERRY"
+     */
+    public static String kindName(int kind) {
+        return KIND_NAMES[kind];
     }
     
     /**
@@ -38,22 +77,42 @@ public abstract class Fruit {
      * @return true if the fruit was collected, false if it isn't collected
      */
     public boolean isCollected() {
-        return collected;
+        return !hasFlag(EntityStore.ACTIVE);
     }
     
     /**
      * Marks this fruit as collected.
      */
     public void collect() {
-        collected = true;
+        setFlag(EntityStore.ACTIVE, false);
+    }
+    
+    /**
+     * Makes the fruit use another random generator, for the fruits that use one.
+     * Games call it for every fruit they use, so all their fruits follow the game's seed.
+     * @param random the random generator
+     */
+    void setRandom(GameRandom random) {
+    }
+    
+    /**
+     * Runs the behaviour of the fruit for one game update, fruits that stay still do nothing.
+     * Cherries teleport on the game's timers, not here.
+     * @param board the game board
+     */
+    public void update(Board board) {
     }
     
     /**
-     * Gets the type of this fruit.
-     * @return the fruit type: "BANANA", "GRAPE", "PINEAPPLE" or "CHERRY"
+     * Puts the fruit back, not collected, at its starting position, with its timer at zero.
+     * Used to restart a level without creating new fruits.
+     * @param x the horizontal starting position
+     * @param y the vertical starting position
      */
-    public String getType() {
-        return type;
+    public void reset(int x, int y) {
+        setPackedPosition(Position.pack(x, y));
+        setFlag(EntityStore.ACTIVE, true);
+        setTimer(0);
     }
     
     /**
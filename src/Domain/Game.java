@@ -1,6 +1,8 @@
 package Domain;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
 
 /**
  * Main game controller that manages all game logic and state.
@@ -10,11 +12,27 @@ import java.util.ArrayList;
  * makes sure they interact correctly according to the game rules.
  */
 public class Game {
+    public static final long UPDATE_INTERVAL = 500; // milliseconds between updates in the game window
+    public static final int INPUT_CAPACITY = 256; // commands that can wait for the next tick
+    public static final int EVENT_CAPACITY = 1024; // events kept for slow consumers
+    static final int TIMER_CAMPFIRE = 0; // timer payload kinds, the payload is the cell or cherry timer id << 1 | kind
+    static final int TIMER_CHERRY = 1;
+    
     private Board board;
     private IceCream player;
-    private ArrayList<Enemy> enemies;
-    private ArrayList<Fruit> fruits;
+    private EntityList<Enemy> enemies;
+    private EntityList<Fruit> fruits; // every fruit in the level order, for display
+    private final EntityStore enemyStore; // enemy i of the list is slot i, once synced
+    private final EntityStore fruitStore; // fruit i of the list is slot i, once synced
+    private final KindRuns enemyRuns; // enemy slots in runs of one kind, one update loop per run
+    private final KindRuns fruitRuns; // fruit slots in runs of one kind
+    private int enemyVersion; // version of the enemy list the store was built from
     private int totalFruits;
+    private int[] activeFruits; // indexes of the fruits not collected, in [0, activeCount) and in no order, for the win check
+    private int activeCount;
+    private int activeVersion; // version of the fruit list the active set was built from
+    private Cherry[] timedCherries = new Cherry[4]; // cherries with a teleport timer, by timer id, null for free ids
+    private int timedCherryCount;
     private int totalScore;
     private boolean gameWon;
     private boolean gameLost;
@@ -22,6 +40,22 @@ public class Game {
     private final long TIME_LIMIT = 180000; // 3 minutes in milliseconds
     private boolean paused;
     private int currentLevel;
+    private LevelTemplate template;
+    private Enemy[] startEnemies;
+    private Fruit[] startFruits;
+    private long entityHash; // Zobrist hash of the player, enemies and fruits
+    private GameClock clock;
+    private long seed;
+    private GameRandom random;
+    private long tickCount;
+    private final InputQueue input;
+    private final EventStream events;
+    private final TimerWheel timers; // countdowns of the campfires and cherries
+    private final IntConsumer timerHandler;
+    private long[] trollStates = new long[64]; // states visited by a troll while planning a jump
+    private int[] trollStepTable = new int[128]; // open addressing index of trollStates: the step of every visited state
+    private int[] trollStepPlans = new int[128]; // plan that wrote every entry of the table, older entries are free
+    private int trollPlan; // number of the current plan, so the table never has to be cleared
     private String playerFlavor;
     private long pausedTime;
     private long lastPauseStart;
@@ -32,81 +66,252 @@ public class Game {
      * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
      */
     public Game(int level, String flavor) {
-        this.currentLevel = level;
+        this(level, flavor, 0, 0);
+    }
+    
+    /**
+     * Creates a new game instance on a board of a custom size.
+     * The level layout is placed on the top left corner of the board,
+     * which is never made smaller than the layout.
+     * @param level the level number to play: 1, 2 or 3
+     * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     * @param width the board width, or 0 to use the width of the level layout
+     * @param height the board height, or 0 to use the height of the level layout
+     */
+    public Game(int level, String flavor, int width, int height) {
+        this(LevelTemplate.forLevel(level), flavor, width, height);
+    }
+    
+    /**
+     * Creates a new game instance whose random fruits follow a seed.
+     * Two games with the same level, seed and player actions play exactly the same.
+     * @param level the level number to play: 1, 2 or 3
+     * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     * @param seed the seed of the game's random generator
+     */
+    public Game(int level, String flavor, long seed) {
+        this(LevelTemplate.forLevel(level), flavor, 0, 0, seed);
+    }
+    
+    /**
+     * Creates a new game instance for a level layout, for example one loaded with LevelLoader.
+     * The layout is read into a new template, games that play the same layout many times
+     * should create the template once and use the LevelTemplate constructor.
+     * @param map the level layout to play
+     * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     */
+    public Game(LevelMap map, String flavor) {
+        this(LevelTemplate.from(map), flavor, 0, 0);
+    }
+    
+    /**
+     * Creates a new game instance for a level template.
+     * @param template the level to play, it can be shared by any number of games
+     * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     */
+    public Game(LevelTemplate template, String flavor) {
+        this(template, flavor, 0, 0);
+    }
+    
+    /**
+     * Creates a new game instance for a level template on a board of a custom size.
+     * @param template the level to play, it can be shared by any number of games
+     * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     * @param width the board width, or 0 to use the width of the level layout
+     * @param height the board height, or 0 to use the height of the level layout
+     */
+    public Game(LevelTemplate template, String flavor, int width, int height) {
+        this(template, flavor, width, height, System.nanoTime());
+    }
+    
+    /**
+     * Creates a new game instance for a level template whose random fruits follow a seed.
+     * @param template the level to play, it can be shared by any number of games
+     * @param flavor the ice cream flavor for the player: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
+     * @param width the board width, or 0 to use the width of the level layout
+     * @param height the board height, or 0 to use the height of the level layout
+     * @param seed the seed of the game's random generator
+     */
+    public Game(LevelTemplate template, String flavor, int width, int height, long seed) {
+        this.seed = seed;
+        this.random = new GameRandom(seed);
+        this.currentLevel = template.getLevel();
+        this.template = template;
         this.playerFlavor = flavor;
+        this.clock = new SystemClock();
         this.pausedTime = 0;
         this.lastPauseStart = 0;
-        board = new Board(16, 16, level);
-        initializeLevel(level);
+        this.input = new InputQueue(INPUT_CAPACITY);
+        this.events = new EventStream(EVENT_CAPACITY);
+        this.timers = new TimerWheel(64);
+        this.timerHandler = this::fireTimer;
+        this.enemyStore = new EntityStore(template.getEnemyCount());
+        this.fruitStore = new EntityStore(template.getFruitCount());
+        this.enemyRuns = new KindRuns(Enemy.KIND_COUNT);
+        this.fruitRuns = new KindRuns(Fruit.KIND_COUNT);
+        board = new Board(Math.max(width, template.getWidth()), Math.max(height, template.getHeight()), template);
+        board.setEvents(events);
+        board.setTimers(timers);
+        initializeLevel();
         this.paused = false;
     }
     
     /**
-     * Initializes all game elements for a specific level.
-     * @param level the level number to initialize
+     * Initializes all game elements from the level template.
      */
-    private void initializeLevel(int level) {
-        enemies = new ArrayList<>();
-        fruits = new ArrayList<>();
+    private void initializeLevel() {
+        enemies = new EntityList<>();
+        fruits = new EntityList<>();
+        activeFruits = new int[template.getFruitCount()];
+        activeVersion = -1;
+        enemyVersion = -1;
         totalScore = 0;
         
-        int[][] levelMatrix = getLevelMatrix(level);
+        int level = template.getLevel();
+        int templateWidth = template.getWidth();
+        random.setState(seed);
         
-        // Create player first
-        for (int y = 0; y < 16; y++) {
-            for (int x = 0; x < 16; x++) {
-                int value = levelMatrix[y][x];
-                if (value == 3) {
-                    player = new IceCream(x, y, playerFlavor);
-                    break;
-                }
-            }
-            if (player != null) { 
-                break;
-            }
-        }
+        // Create player first, enemies may target it
+        player = new IceCream(template.getSpawnX(), template.getSpawnY(), playerFlavor);
         
         // Create enemies and fruits
-        for (int y = 0; y < 16; y++) {
-            for (int x = 0; x < 16; x++) {
-                int value = levelMatrix[y][x];
-                Fruit newFruit = null;
-                
-                switch(value) {
-                    case 3: // Player already created
-                        break;
-                    case 4: // Enemy
-                        createEnemy(x, y, level);
-                        break;
-                    case 5: // Banana
-                        newFruit = new Banana(x, y);
-                        fruits.add(newFruit);
-                        totalScore += newFruit.getPoints();
-                        break;
-                    case 6: // Grapes
-                        newFruit = new Grape(x, y);
-                        fruits.add(newFruit);
-                        totalScore += newFruit.getPoints();
-                        break;
-                    case 7: // Pineapple
-                        newFruit = new Pineapple(x, y);
-                        fruits.add(newFruit);
-                        totalScore += newFruit.getPoints();
-                        break;
-                    case 8: // Cherry
-                        newFruit = new Cherry(x, y);
-                        fruits.add(newFruit);
-                        totalScore += newFruit.getPoints();
-                        break;
-                }
-            }
+        for (int i = 0; i < template.getEnemyCount(); i++) {
+            int cell = template.getEnemyCell(i);
+            createEnemy(cell % templateWidth, cell / templateWidth, level);
+        }
+        for (int i = 0; i < template.getFruitCount(); i++) {
+            int cell = template.getFruitCell(i);
+            Fruit newFruit = createFruit(cell % templateWidth, cell / templateWidth, template.getFruitCode(i));
+            fruits.add(newFruit);
+            totalScore += newFruit.getPoints();
         }
         
+        startEnemies = enemies.toArray(new Enemy[0]);
+        startFruits = fruits.toArray(new Fruit[0]);
         totalFruits = fruits.size();
         gameWon = false;
         gameLost = false;
-        startTime = System.currentTimeMillis();
+        startTime = clock.currentTimeMillis();
         pausedTime = 0;
+        tickCount = 0;
+        entityHash = computeEntityHash();
+        scheduleCherries();
+    }
+    
+    /**
+     * Removes every pending timer and starts the teleport countdown of every cherry.
+     */
+    private void scheduleCherries() {
+        timers.clear();
+        for (int id = 0; id < timedCherryCount; id++) {
+            if (timedCherries[id] != null) {
+                timedCherries[id].timer = -1;
+                timedCherries[id] = null;
+            }
+        }
+        timedCherryCount = 0;
+        for (int i = 0; i < fruits.size(); i++) {
+            Fruit fruit = fruits.get(i);
+            if (fruit instanceof Cherry) {
+                scheduleCherry((Cherry) fruit);
+            }
+        }
+    }
+    
+    /**
+     * Gives a cherry a timer id and starts its teleport countdown.
+     * The timer is keyed by the id and not by the position in the list,
+     * so changes to the fruit list never send it to another fruit.
+     * @param cherry the cherry, it must not have a timer in this game
+     */
+    private void scheduleCherry(Cherry cherry) {
+        int id = 0;
+        while (id < timedCherryCount && timedCherries[id] != null) {
+            id++;
+        }
+        if (id == timedCherryCount) {
+            if (id == timedCherries.length) {
+                timedCherries = Arrays.copyOf(timedCherries, id * 2);
+            }
+            timedCherryCount++;
+        }
+        timedCherries[id] = cherry;
+        cherry.timerId = id;
+        cherry.timer = timers.schedule(cherry.getTeleportInterval(), id << 1 | TIMER_CHERRY);
+    }
+    
+    /**
+     * Checks if a cherry already has a timer id in this game.
+     * @param cherry the cherry
+     * @return true if the game counts down its teleports, false otherwise
+     */
+    private boolean isTimed(Cherry cherry) {
+        int id = cherry.timerId;
+        return id >= 0 && id < timedCherryCount && timedCherries[id] == cherry;
+    }
+    
+    /**
+     * Matches the cherry timers with the fruit list after it changed: cherries that left
+     * the list lose their timer and cherries added from outside start their countdown.
+     */
+    private void syncCherryTimers() {
+        for (int id = 0; id < timedCherryCount; id++) {
+            Cherry cherry = timedCherries[id];
+            if (cherry != null && cherry.store != fruitStore) {
+                timers.cancel(cherry.timer);
+                cherry.timer = -1;
+                timedCherries[id] = null;
+            }
+        }
+        for (int i = 0; i < fruits.size(); i++) {
+            Fruit fruit = fruits.get(i);
+            if (fruit instanceof Cherry && !isTimed((Cherry) fruit)) {
+                scheduleCherry((Cherry) fruit);
+            }
+        }
+    }
+    
+    /**
+     * Runs a timer of the game when it is due: reignites a campfire or teleports a cherry.
+     * @param payload the cell or cherry timer id shifted left by one, with the timer kind in the lowest bit
+     */
+    private void fireTimer(int payload) {
+        int index = payload >>> 1;
+        if ((payload & 1) == TIMER_CAMPFIRE) {
+            board.reigniteCampfire(index);
+            return;
+        }
+        Cherry cherry = index < timedCherryCount ? timedCherries[index] : null;
+        if (cherry == null || cherry.store != fruitStore || cherry.isCollected()) {
+            if (cherry != null) {
+                cherry.timer = -1; // collected cherries stop teleporting
+            }
+            return;
+        }
+        long before = fruitKey(cherry.slot, cherry);
+        cherry.teleportNow(board);
+        entityHash ^= before ^ fruitKey(cherry.slot, cherry);
+        cherry.timer = timers.schedule(cherry.getTeleportInterval(), payload);
+    }
+    
+    /**
+     * Creates a fruit of the type given by its level code.
+     * @param x the horizontal spawn position
+     * @param y the vertical spawn position
+     * @param code the level code: 5 = banana, 6 = grape, 7 = pineapple, 8 = cherry
+     * @return the new fruit
+     */
+    private Fruit createFruit(int x, int y, int code) {
+        switch(code) {
+            case 5:
+                return new Banana(x, y);
+            case 6:
+                return new Grape(x, y);
+            case 7:
+                return new Pineapple(x, y, random);
+            default:
+                return new Cherry(x, y, random);
+        }
     }
     
     /**
@@ -135,105 +340,38 @@ public class Game {
     }
     
     /**
-     * Gets the level matrix for the specified level number.
-     * @param level the level number (1, 2, or 3)
-     * @return a 2D array representing the level layout
+     * Moves the player in the specified direction if possible.
+     * Unknown direction names are ignored.
+     * @param direction the direction to move: "UP", "DOWN", "LEFT", "RIGHT"
      */
-    private int[][] getLevelMatrix(int level) {
-        switch(level) {
-            case 1:
-                return new int[][] {
-                    {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-                    {1,6,0,0,0,0,0,0,0,0,0,0,4,0,6,1},
-                    {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-                    {1,0,5,0,0,0,0,0,0,0,0,0,0,5,0,1},
-                    {1,0,0,2,2,0,0,0,0,0,0,2,2,0,0,1},
-                    {1,0,0,2,6,0,0,0,0,0,4,6,2,0,0,1},
-                    {1,5,0,2,0,0,1,1,1,1,0,0,2,0,5,1},
-                    {1,0,0,2,0,0,1,1,1,1,0,0,2,0,0,1},
-                    {1,0,0,2,0,0,1,1,1,1,0,0,2,0,0,1},
-                    {1,5,0,2,0,0,1,1,1,1,0,0,2,0,5,1},
-                    {1,0,0,2,6,0,0,0,0,0,0,6,2,0,0,1},
-                    {1,0,0,2,2,0,0,0,0,0,0,2,2,0,0,1},
-                    {1,0,5,0,0,0,0,0,0,0,0,0,0,5,0,1},
-                    {1,0,0,0,0,0,0,3,0,0,0,0,0,0,0,1},
-                    {1,6,0,0,0,0,0,0,0,0,0,0,0,0,6,1},
-                    {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-                };
-            case 2:
-                return new int[][] {
-                    {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-                    {1,0,0,7,0,0,0,0,0,0,0,0,7,0,0,1},
-                    {1,0,2,0,2,0,2,0,0,2,0,2,0,2,0,1},
-                    {1,7,0,0,0,0,0,0,0,0,0,0,0,0,7,1},
-                    {1,0,2,0,9,0,5,2,2,5,0,9,0,2,0,1},
-                    {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-                    {1,0,2,0,2,0,1,1,1,1,0,2,0,2,0,1},
-                    {1,0,2,0,5,0,1,1,1,1,0,5,0,2,0,1},
-                    {1,0,2,0,5,0,1,1,1,1,0,5,0,2,0,1},
-                    {1,0,2,0,2,0,1,1,1,1,0,2,0,2,0,1},
-                    {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
-                    {1,0,2,0,9,0,5,2,2,5,0,9,0,2,0,1},
-                    {1,7,0,3,0,0,0,0,0,0,0,0,4,0,7,1},
-                    {1,0,2,0,2,0,2,0,0,2,0,2,0,2,0,1},
-                    {1,0,0,7,0,0,0,0,0,0,0,0,7,0,0,1},
-                    {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-                };
-            case 3:
-                return new int[][] {
-                    {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
-                    {1,8,0,0,7,0,0,0,0,0,0,7,0,0,8,1},
-                    {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-                    {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-                    {1,7,0,0,10,0,0,0,0,0,0,10,0,0,7,1},
-                    {1,0,2,2,0,8,0,4,0,0,8,0,2,2,0,1},
-                    {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-                    {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-                    {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-                    {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
-                    {1,0,2,2,0,8,0,0,3,0,8,0,2,2,0,1},
-                    {1,7,0,0,10,0,0,0,0,0,0,10,0,0,7,1},
-                    {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-                    {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
-                    {1,8,0,0,7,0,0,0,0,0,0,7,0,0,8,1},
-                    {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
-                };
-            default:
-                return getLevelMatrix(1);
+    public void movePlayer(String direction) {
+        int index = Board.directionIndex(direction);
+        if (index >= 0) {
+            movePlayer(index);
         }
     }
     
     /**
      * Moves the player in the specified direction if possible.
-     * @param direction the direction to move: "UP", "DOWN", "LEFT", "RIGHT"
+     * @param direction the direction to move: Board.UP, DOWN, LEFT or RIGHT
      */
-    public void movePlayer(String direction) {
+    public void movePlayer(int direction) {
         if (paused || gameLost || gameWon) {
             return;
         }
         
+        long before = playerKey();
         player.setDirection(direction);
         
-        int currentX = player.getPosition().getX();
-        int currentY = player.getPosition().getY();
-        int newX = currentX;
-        int newY = currentY;
+        int next = Board.neighbor(player.getPackedPosition(), direction);
         
-        switch(direction) {
-            case "UP": newY--; break;
-            case "DOWN": newY++; break;
-            case "LEFT": newX--; break;
-            case "RIGHT": newX++; break;
-        }
-        
-        if (board.isValidPosition(newX, newY) && 
-            !board.hasWall(newX, newY) && 
-            !board.hasIceBlock(newX, newY)) {
-            player.move(newX, newY);
+        if (board.canMoveTo(next)) {
+            player.move(Position.unpackX(next), Position.unpackY(next));
             checkFruitCollection();
             checkEnemyCollision();
             checkObstacleCollision();
         }
+        entityHash ^= before ^ playerKey();
     }
     
     /**
@@ -244,33 +382,15 @@ public class Game {
             return;
         }
         
-        int x = player.getPosition().getX();
-        int y = player.getPosition().getY();
-        String direction = player.getDirection();
-        
-        int targetX = x;
-        int targetY = y;
+        int position = player.getPackedPosition();
+        int direction = player.getDirectionIndex();
+        int next = Board.neighbor(position, direction);
         
-        switch(direction) {
-            case "UP": 
-            	targetY--; 
-            	break;
-            case "DOWN": 
-            	targetY++; 
-            	break;
-            case "LEFT": 
-            	targetX--; 
-            	break;
-            case "RIGHT": 
-            	targetX++; 
-            	break;
-        }
-        
-        if (board.hasIceBlock(targetX, targetY)) {
-            board.destroyIceBlocks(x, y, direction);
-        } else if (board.isValidPosition(targetX, targetY) && 
-                   !board.hasWall(targetX, targetY)) {
-            board.createIceBlocks(targetX, targetY, direction);
+        if (board.hasIceBlock(next)) {
+            board.destroyIceBlocks(Position.unpackX(position), Position.unpackY(position), direction);
+        } else {
+            // The board stops the line right away if the next cell is a wall or outside
+            board.createIceBlocks(Position.unpackX(next), Position.unpackY(next), direction);
         }
     }
     
@@ -278,36 +398,88 @@ public class Game {
      * Checks if the player is standing on a fruit to collect it.
      */
     private void checkFruitCollection() {
-        int x = player.getPosition().getX();
-        int y = player.getPosition().getY();
+        int position = player.getPackedPosition();
         
-        for (Fruit fruit : fruits) {
-            if (!fruit.isCollected() && 
-                fruit.getPosition().getX() == x && 
-                fruit.getPosition().getY() == y) {
+        syncActiveFruits();
+        for (int k = 0; k < activeCount; k++) {
+            int i = activeFruits[k];
+            if (fruitStore.getPosition(i) == position) {
+                Fruit fruit = fruits.get(i);
+                entityHash ^= fruitKey(i, fruit);
                 fruit.collect();
+                removeActiveFruit(k);
                 player.collectFruit(fruit.getPoints());
+                events.emit(EventStream.FRUIT_COLLECTED, board.cellOf(position), fruit.getPoints());
                 
-                if (player.getFruitsCollected() >= totalFruits) {
+                if (activeCount == 0) {
                     gameWon = true;
+                    events.emit(EventStream.GAME_WON, -1, player.getScore());
                 }
                 break;
             }
         }
     }
     
+    /**
+     * Rebuilds the fruit store and the set of active fruits if the fruit list changed since they were built,
+     * and drops the fruits collected without the game, for example by a test or an editor.
+     * Fruits added from outside start using the game's random generator.
+     */
+    private void syncActiveFruits() {
+        if (activeVersion != fruits.getVersion()) {
+            fruitStore.rebuild(fruits);
+            fruitRuns.rebuild(fruitStore);
+            if (activeFruits.length < fruits.size()) {
+                activeFruits = new int[fruits.size()];
+            }
+            activeCount = 0;
+            for (int i = 0; i < fruits.size(); i++) {
+                fruits.get(i).setRandom(random);
+                activeFruits[activeCount++] = i;
+            }
+            activeVersion = fruits.getVersion();
+            syncCherryTimers();
+        }
+        for (int k = activeCount - 1; k >= 0; k--) {
+            if (!fruitStore.hasFlag(activeFruits[k], EntityStore.ACTIVE)) {
+                removeActiveFruit(k);
+            }
+        }
+    }
+    
+    /**
+     * Rebuilds the enemy store if the enemy list changed since it was built.
+     * Enemies added from outside start chasing the game's player.
+     */
+    private void syncEnemies() {
+        if (enemyVersion != enemies.getVersion()) {
+            enemyStore.rebuild(enemies);
+            enemyRuns.rebuild(enemyStore);
+            for (int i = 0; i < enemies.size(); i++) {
+                enemies.get(i).setTarget(player);
+            }
+            enemyVersion = enemies.getVersion();
+        }
+    }
+    
+    /**
+     * Removes a fruit from the active set by moving the last active fruit to its place.
+     * @param k the position of the fruit in the active set
+     */
+    private void removeActiveFruit(int k) {
+        activeFruits[k] = activeFruits[--activeCount];
+    }
+    
     /**
      * Checks if the player is touching an enemy.
      */
     private void checkEnemyCollision() {
-        int x = player.getPosition().getX();
-        int y = player.getPosition().getY();
+        int position = player.getPackedPosition();
         
-        for (Enemy enemy : enemies) {
-            if (enemy.getPosition().getX() == x && 
-                enemy.getPosition().getY() == y) {
-                player.die();
-                gameLost = true;
+        syncEnemies();
+        for (int i = 0; i < enemyStore.size(); i++) {
+            if (enemyStore.getPosition(i) == position) {
+                killPlayer();
                 break;
             }
         }
@@ -317,59 +489,541 @@ public class Game {
      * Checks if the player is touching a lethal obstacle.
      */
     private void checkObstacleCollision() {
-        int x = player.getPosition().getX();
-        int y = player.getPosition().getY();
-        
-        if (board.hasCampfireOn(x, y)) {
-            player.die();
-            gameLost = true;
+        if (board.hasCampfireOn(player.getPackedPosition())) {
+            killPlayer();
         }
     }
     
+    /**
+     * Kills the player and ends the game.
+     */
+    private void killPlayer() {
+        player.die();
+        events.emit(EventStream.PLAYER_DIED, board.cellOf(player.getPackedPosition()), 0);
+        gameLost = true;
+        events.emit(EventStream.GAME_LOST, -1, player.getScore());
+    }
+    
     /**
      * Updates all dynamic game elements.
+     * The queued player commands are applied first, in the order they were sent.
      */
     public void update() {
+        input.drainTo(this);
+        // Time passes while the game is paused, the pause accounting takes it out
+        clock.tick();
+        tickCount++;
+        events.setTick(tickCount);
         if (paused || gameLost || gameWon) {
             return;
         }
         
-        long currentTime = System.currentTimeMillis();
+        long currentTime = clock.currentTimeMillis();
         if (currentTime - startTime - pausedTime >= TIME_LIMIT) {
             gameLost = true;
+            events.emit(EventStream.GAME_LOST, -1, player.getScore());
             return;
         }
         
-        for (Enemy enemy : enemies) {
-            enemy.updatePosition(board);
+        // Enemies and fruits move in list order, with one loop per run of the same kind over their stores,
+        // the objects are only views. Entities without a known kind move through their own methods.
+        syncEnemies();
+        boolean chase = player.isAlive();
+        int target = player.getPackedPosition();
+        for (int r = 0; r < enemyRuns.size(); r++) {
+            switch(enemyRuns.kind(r)) {
+                case Enemy.TROLL:
+                    updateTrolls(enemyRuns.start(r), enemyRuns.end(r));
+                    break;
+                case Enemy.POT:
+                    if (chase) {
+                        updatePots(enemyRuns.start(r), enemyRuns.end(r), Position.unpackX(target), Position.unpackY(target));
+                    }
+                    break;
+                case Enemy.SQUID:
+                    if (chase) {
+                        updateSquids(enemyRuns.start(r), enemyRuns.end(r), Position.unpackX(target), Position.unpackY(target));
+                    }
+                    break;
+                default:
+                    updateOtherEnemies(enemyRuns.start(r), enemyRuns.end(r));
+                    break;
+            }
         }
         
-        for (Fruit fruit : fruits) {
-            if (fruit instanceof Pineapple) {
-                ((Pineapple) fruit).move(board);
-            } else if (fruit instanceof Cherry) {
-                ((Cherry) fruit).teleport(board);
+        // Bananas, grapes and cherries do nothing on an update, so their runs are skipped
+        syncActiveFruits();
+        for (int r = 0; r < fruitRuns.size(); r++) {
+            if (fruitRuns.kind(r) == Fruit.PINEAPPLE) {
+                updatePineapples(fruitRuns.start(r), fruitRuns.end(r));
+            } else if (fruitRuns.kind(r) == -1) {
+                updateOtherFruits(fruitRuns.start(r), fruitRuns.end(r));
             }
         }
         
+        long before = playerKey();
         checkEnemyCollision();
         checkObstacleCollision();
+        entityHash ^= before ^ playerKey();
+        // Campfires reignite and cherries teleport when their timers are due
+        timers.advance(timerHandler);
         board.updateObstacles();
         board.cleanDestroyedBlocks();
     }
     
+    /**
+     * Moves a run of trolls one update.
+     * @param from the first slot of the run
+     * @param to the slot after the last one of the run
+     */
+    private void updateTrolls(int from, int to) {
+        for (int i = from; i < to; i++) {
+            long before = enemyKey(i);
+            Troll.step(enemyStore, i, board);
+            entityHash ^= before ^ enemyKey(i);
+        }
+    }
+    
+    /**
+     * Moves a run of pots one cell towards the player.
+     * @param from the first slot of the run
+     * @param to the slot after the last one of the run
+     * @param playerX the horizontal position of the player
+     * @param playerY the vertical position of the player
+     */
+    private void updatePots(int from, int to, int playerX, int playerY) {
+        for (int i = from; i < to; i++) {
+            long before = enemyKey(i);
+            Pot.step(enemyStore, i, board, playerX, playerY);
+            entityHash ^= before ^ enemyKey(i);
+        }
+    }
+    
+    /**
+     * Moves a run of squids one cell towards the player, breaking the ice in their way.
+     * @param from the first slot of the run
+     * @param to the slot after the last one of the run
+     * @param playerX the horizontal position of the player
+     * @param playerY the vertical position of the player
+     */
+    private void updateSquids(int from, int to, int playerX, int playerY) {
+        for (int i = from; i < to; i++) {
+            long before = enemyKey(i);
+            OrangeSquid.step(enemyStore, i, board, playerX, playerY, board);
+            entityHash ^= before ^ enemyKey(i);
+        }
+    }
+    
+    /**
+     * Updates a run of enemies without a known kind, through their own updatePosition.
+     * @param from the first slot of the run
+     * @param to the slot after the last one of the run
+     */
+    private void updateOtherEnemies(int from, int to) {
+        for (int i = from; i < to; i++) {
+            long before = enemyKey(i);
+            enemies.get(i).updatePosition(board);
+            entityHash ^= before ^ enemyKey(i);
+        }
+    }
+    
+    /**
+     * Moves the pineapples of a run that are not collected yet.
+     * @param from the first slot of the run
+     * @param to the slot after the last one of the run
+     */
+    private void updatePineapples(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (fruitStore.hasFlag(i, EntityStore.ACTIVE)) {
+                long before = fruitKey(i);
+                Pineapple.move(fruitStore, i, board, random);
+                entityHash ^= before ^ fruitKey(i);
+            }
+        }
+    }
+    
+    /**
+     * Updates the fruits of a run without a known kind that are not collected, through their own update.
+     * @param from the first slot of the run
+     * @param to the slot after the last one of the run
+     */
+    private void updateOtherFruits(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (fruitStore.hasFlag(i, EntityStore.ACTIVE)) {
+                long before = fruitKey(i);
+                fruits.get(i).update(board);
+                entityHash ^= before ^ fruitKey(i);
+            }
+        }
+    }
+    
+    /**
+     * Runs several updates, jumping over the ticks where nothing but the trolls can change.
+     * Trolls only depend on their own state and the board, so while no timer is due, no command
+     * is queued and the time limit is not reached, their positions after any number of ticks
+     * come from their cycle of states. The game ends up exactly as if update had been called
+     * the same number of times. While the game is paused or over, the ticks are skipped at once.
+     * Games with other enemies, moving fruits or a clock whose time can't be known from the ticks
+     * run every update.
+     * @param ticks the number of updates to run
+     */
+    public void advance(long ticks) {
+        long remaining = ticks;
+        while (remaining > 0) {
+            long span = idleTicks(remaining);
+            if (span <= 0) {
+                update();
+                remaining--;
+                continue;
+            }
+            if (!paused && !gameLost && !gameWon) {
+                for (int i = 0; i < enemies.size(); i++) {
+                    Troll troll = (Troll) enemies.get(i);
+                    long before = enemyKey(i, troll);
+                    troll.setState(planTroll(troll, span, false));
+                    entityHash ^= before ^ enemyKey(i, troll);
+                }
+                timers.skip(span);
+            }
+            clock.advance(span);
+            tickCount += span;
+            events.setTick(tickCount);
+            remaining -= span;
+        }
+    }
+    
+    /**
+     * Gets how many of the next ticks can be jumped over without running them.
+     * @param limit the most ticks wanted
+     * @return the number of ticks that can be jumped, 0 if the next update must run
+     */
+    private long idleTicks(long limit) {
+        long millisPerTick = clock.getMillisPerTick();
+        if (input.size() > 0 || millisPerTick <= 0) {
+            return 0; // without a fixed tick length the time limit can't be planned, every update runs
+        }
+        if (paused || gameLost || gameWon) {
+            return limit;
+        }
+        // Only plain trolls can be planned, the store only gives the troll kind to the Troll class
+        syncEnemies();
+        if (enemyRuns.count(Enemy.TROLL) != enemyStore.size()) {
+            return 0;
+        }
+        syncActiveFruits();
+        if (fruitsMove(Fruit.PINEAPPLE) || fruitsMove(-1)) {
+            return 0;
+        }
+        if (!board.obstaclesSettled()) {
+            return 0;
+        }
+        
+        long left = TIME_LIMIT - (clock.currentTimeMillis() - startTime - pausedTime);
+        if (left <= 0) {
+            return 0; // the next update ends the game
+        }
+        long ticksToLimit = (left + millisPerTick - 1) / millisPerTick; // the update that ends the game
+        long span = Math.min(limit, Math.min(timers.ticksUntilNextTimer() - 1, ticksToLimit - 1));
+        for (int i = 0; i < enemies.size() && span > 0; i++) {
+            span = Math.min(span, planTroll((Troll) enemies.get(i), span, true));
+        }
+        return span;
+    }
+    
+    /**
+     * Follows the states of a troll over the next ticks on the current board.
+     * States are simulated until the troll reaches the player, the ticks run out or a state repeats,
+     * then the rest of the ticks are taken from the cycle.
+     * @param troll the troll to follow
+     * @param ticks the number of ticks
+     * @param untilPlayer true to get the ticks before the troll reaches the player,
+     *                    false to get the state after the ticks
+     * @return the ticks that can pass before the troll reaches the player (or ticks if it doesn't),
+     *         or the packed state of the troll after the ticks
+     */
+    private long planTroll(Troll troll, long ticks, boolean untilPlayer) {
+        int target = player.getPackedPosition();
+        if (++trollPlan == 0) {
+            Arrays.fill(trollStepPlans, 0); // the plan numbers wrapped around
+            trollPlan = 1;
+        }
+        long state = troll.getState();
+        trollStates[0] = state;
+        visitTrollState(state, 0);
+        int count = 1;
+        int cycleStart = -1;
+        while (count <= ticks) {
+            state = Troll.nextState(board, state);
+            if (untilPlayer && Troll.positionOf(state) == target) {
+                return count - 1;
+            }
+            int seen = visitTrollState(state, count);
+            if (seen >= 0) {
+                cycleStart = seen;
+                break;
+            }
+            if (count == trollStates.length) {
+                trollStates = Arrays.copyOf(trollStates, count * 2);
+            }
+            trollStates[count++] = state;
+        }
+        if (untilPlayer) {
+            return ticks;
+        }
+        if (ticks < count) {
+            return trollStates[(int) ticks];
+        }
+        int period = count - cycleStart;
+        return trollStates[cycleStart + (int) ((ticks - cycleStart) % period)];
+    }
+    
+    /**
+     * Finds the first step a troll state was visited at while planning, or records it as visited.
+     * The table keeps the steps of the states, the states themselves are read from trollStates,
+     * so a lookup doesn't box anything.
+     * @param state the packed state of the troll
+     * @param step the step of the state, the states of the earlier steps must be in trollStates
+     * @return the first step the state was visited at, or -1 if it is new and was recorded
+     */
+    private int visitTrollState(long state, int step) {
+        if (step * 2 >= trollStepTable.length) {
+            trollStepTable = new int[trollStepTable.length * 2];
+            trollStepPlans = new int[trollStepTable.length];
+            for (int earlier = 0; earlier < step; earlier++) {
+                visitTrollState(trollStates[earlier], earlier);
+            }
+        }
+        int mask = trollStepTable.length - 1;
+        int index = (int) GameRandom.mix(state) & mask;
+        while (trollStepPlans[index] == trollPlan) {
+            int seen = trollStepTable[index];
+            if (trollStates[seen] == state) {
+                return seen;
+            }
+            index = (index + 1) & mask;
+        }
+        trollStepPlans[index] = trollPlan;
+        trollStepTable[index] = step;
+        return -1;
+    }
+    
+    /**
+     * Checks if the fruits of a kind can move on the next update.
+     * @param kind the fruit kind, or -1 for the fruits without a known kind
+     * @return true if a fruit of the kind is not collected yet, false otherwise
+     */
+    private boolean fruitsMove(int kind) {
+        for (int r = 0; r < fruitRuns.size(); r++) {
+            if (fruitRuns.kind(r) == kind) {
+                for (int i = fruitRuns.start(r); i < fruitRuns.end(r); i++) {
+                    if (fruitStore.hasFlag(i, EntityStore.ACTIVE)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Gets a 64-bit Zobrist hash of the game state: the board cells, the player
+     * (position, direction and whether it is alive), the enemy positions, the fruits not collected yet
+     * and the state of the random generator.
+     * Two games in the same state have the same hash. It is updated with every change made
+     * through the game, so reading it costs nothing; changes made directly on the entities
+     * or the lists need a call to refreshStateHash.
+     * @return the 64-bit hash
+     */
+    public long stateHash() {
+        return entityHash ^ board.stateHash() ^ randomKey();
+    }
+    
+    /**
+     * Computes the hash of the game state from scratch, going over the whole board and every entity.
+     * @return the same value stateHash should return
+     */
+    public long computeStateHash() {
+        return computeEntityHash() ^ board.computeStateHash() ^ randomKey();
+    }
+    
+    /**
+     * Recomputes the hash kept for the entities, after they were changed without going through the game.
+     */
+    public void refreshStateHash() {
+        entityHash = computeEntityHash();
+    }
+    
+    /**
+     * Computes the hash of the player, the enemies and the fruits from scratch.
+     * @return the XOR of their keys
+     */
+    private long computeEntityHash() {
+        long result = playerKey();
+        for (int i = 0; i < enemies.size(); i++) {
+            result ^= enemyKey(i, enemies.get(i));
+        }
+        for (int i = 0; i < fruits.size(); i++) {
+            result ^= fruitKey(i, fruits.get(i));
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the hash key of the state of the random generator.
+     * @return the key of the generator state
+     */
+    private long randomKey() {
+        return GameRandom.mix(random.getState() ^ ((long) Zobrist.RANDOM << 56));
+    }
+    
+    /**
+     * Gets the hash key of the player in its current state.
+     * @return the key of the player
+     */
+    private long playerKey() {
+        int state = player.getDirectionIndex() + 1;
+        if (player.isAlive()) {
+            state |= 8;
+        }
+        return Zobrist.key(Zobrist.PLAYER, state, board.cellOf(player.getPackedPosition()));
+    }
+    
+    /**
+     * Gets the hash key of an enemy at its current position.
+     * @param index the index of the enemy in the list
+     * @param enemy the enemy
+     * @return the key of the enemy
+     */
+    private long enemyKey(int index, Enemy enemy) {
+        return Zobrist.key(Zobrist.ENEMY, index, board.cellOf(enemy.getPackedPosition()));
+    }
+    
+    /**
+     * Gets the hash key of an enemy of the store at its current position.
+     * @param slot the slot of the enemy, the same as its index in the list
+     * @return the key of the enemy
+     */
+    private long enemyKey(int slot) {
+        return Zobrist.key(Zobrist.ENEMY, slot, board.cellOf(enemyStore.getPosition(slot)));
+    }
+    
+    /**
+     * Gets the hash key of a fruit at its current position, collected fruits are not part of the state.
+     * @param index the index of the fruit in the list
+     * @param fruit the fruit
+     * @return the key of the fruit, or 0 if it is collected
+     */
+    private long fruitKey(int index, Fruit fruit) {
+        if (fruit.isCollected()) {
+            return 0;
+        }
+        return Zobrist.key(Zobrist.FRUIT, index, board.cellOf(fruit.getPackedPosition()));
+    }
+    
+    /**
+     * Gets the hash key of a fruit of the store at its current position.
+     * @param slot the slot of the fruit, the same as its index in the list
+     * @return the key of the fruit, or 0 if it is collected
+     */
+    private long fruitKey(int slot) {
+        if (!fruitStore.hasFlag(slot, EntityStore.ACTIVE)) {
+            return 0;
+        }
+        return Zobrist.key(Zobrist.FRUIT, slot, board.cellOf(fruitStore.getPosition(slot)));
+    }
+    
+    /**
+     * Changes the clock that measures the time of the game, for example to a TickClock
+     * to run it faster than real time. The time already played is kept, a game that
+     * has not been updated yet has played none, however long ago it was created.
+     * @param clock the new clock
+     */
+    public void setClock(GameClock clock) {
+        // Time since the start without the finished pauses, the current pause is kept apart
+        long now = this.clock.currentTimeMillis();
+        long elapsed = tickCount == 0 ? 0 : now - startTime - pausedTime;
+        long pauseDuration = paused ? now - lastPauseStart : 0;
+        
+        this.clock = clock;
+        long newNow = clock.currentTimeMillis();
+        startTime = newNow - elapsed;
+        pausedTime = 0;
+        lastPauseStart = newNow - pauseDuration;
+    }
+    
+    /**
+     * Gets the clock that measures the time of the game.
+     * @return the clock, a SystemClock unless another one was set
+     */
+    public GameClock getClock() {
+        return clock;
+    }
+    
+    /**
+     * Gets the seed of the game's random generator, restarting the level starts again from it.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Gets the random generator used by the fruits of the game.
+     * Its state is part of the game state: saving it with getState and restoring it with setState
+     * makes the fruits repeat their moves.
+     * @return the game's random generator
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+    
+    /**
+     * Gets how many times update has been called since the level started.
+     * @return the number of updates
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+    
+    /**
+     * Gets the queue of player commands. Any thread can send commands to it,
+     * they are applied in order at the start of the next update or by applyInput.
+     * @return the input queue of this game
+     */
+    public InputQueue getInput() {
+        return input;
+    }
+    
+    /**
+     * Gets the stream of events of this game, consumers read it with their own cursor.
+     * @return the event stream
+     */
+    public EventStream getEvents() {
+        return events;
+    }
+    
+    /**
+     * Applies the queued player commands without updating the game.
+     * It must be called by the thread that runs the game.
+     * @return the number of commands applied
+     */
+    public int applyInput() {
+        return input.drainTo(this);
+    }
+    
     /**
      * Toggles the pause state of the game.
      */
     public void togglePause() {
         if (paused) {
-            long pauseDuration = System.currentTimeMillis() - lastPauseStart;
+            long pauseDuration = clock.currentTimeMillis() - lastPauseStart;
             pausedTime += pauseDuration;
             paused = false;
         } else {
-            lastPauseStart = System.currentTimeMillis();
+            lastPauseStart = clock.currentTimeMillis();
             paused = true;
         }
+        events.emit(EventStream.PAUSE_TOGGLED, -1, paused ? 1 : 0);
     }
     
     /**
@@ -405,7 +1059,8 @@ public class Game {
     }
     
     /**
-     * Gets the array of all the fruits in the game.
+     * Gets the array of all the fruits in the game, in the level order.
+     * Collected fruits stay in the list, the game keeps the ones left in a separate set.
      * @return ArrayList of Fruit objects
      */
     public ArrayList<Fruit> getFruits() {
@@ -433,15 +1088,25 @@ public class Game {
      * @return time remaining in milliseconds (minimum 0)
      */
     public long getTimeRemaining() {
-        long elapsed = System.currentTimeMillis() - startTime - pausedTime;
+        long now = clock.currentTimeMillis();
+        long elapsed = now - startTime - pausedTime;
         if (paused) {
-            long currentPauseDuration = System.currentTimeMillis() - lastPauseStart;
+            long currentPauseDuration = now - lastPauseStart;
             elapsed -= currentPauseDuration;
         }
         long remaining = TIME_LIMIT - elapsed;
         return Math.max(0, remaining);
     }
     
+    /**
+     * Gets the number of fruits not collected yet.
+     * @return the remaining fruit count
+     */
+    public int getRemainingFruits() {
+        syncActiveFruits();
+        return activeCount;
+    }
+    
     /**
      * Gets the total number of fruits in the level.
      * @return the total fruit count
@@ -466,6 +1131,43 @@ public class Game {
         return currentLevel;
     }
     
+    /**
+     * Restarts the current level reusing the board, the player, the enemies and the fruits.
+     * Everything is put back to its starting state from the level template and the
+     * board layers are copied back in bulk, so no new objects are created.
+     * Use restart to get new objects instead.
+     */
+    public void reset() {
+        board.reset();
+        random.setState(seed);
+        player.reset(template.getSpawnX(), template.getSpawnY());
+        
+        int templateWidth = template.getWidth();
+        enemies.clear();
+        for (int i = 0; i < startEnemies.length; i++) {
+            int cell = template.getEnemyCell(i);
+            startEnemies[i].reset(cell % templateWidth, cell / templateWidth);
+            enemies.add(startEnemies[i]);
+        }
+        fruits.clear();
+        for (int i = 0; i < startFruits.length; i++) {
+            int cell = template.getFruitCell(i);
+            startFruits[i].reset(cell % templateWidth, cell / templateWidth);
+            fruits.add(startFruits[i]);
+        }
+        
+        totalFruits = startFruits.length;
+        gameWon = false;
+        gameLost = false;
+        startTime = clock.currentTimeMillis();
+        pausedTime = 0;
+        tickCount = 0;
+        entityHash = computeEntityHash();
+        scheduleCherries();
+        events.setTick(0);
+        events.emit(EventStream.GAME_RESET, -1, 0);
+    }
+    
     /**
      * Restarts the current level.
      */
@@ -473,7 +1175,11 @@ public class Game {
         enemies.clear();
         fruits.clear();
         player = null;
-        board = new Board(16, 16, currentLevel);
-        initializeLevel(currentLevel);
+        board = new Board(board.getWidth(), board.getHeight(), template);
+        board.setEvents(events);
+        board.setTimers(timers);
+        initializeLevel();
+        events.setTick(0);
+        events.emit(EventStream.GAME_RESET, -1, 0);
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package Domain;
+
+/**
+ * Source of the player actions for games that run without a window.
+ * An agent can be shared by games running at the same time on different threads,
+ * so it must not keep state between calls unless it is thread-safe.
+ */
+public interface GameAgent {
+    
+    /**
+     * Decides and performs the actions of the player before an update,
+     * calling movePlayer or handleIceBlock on the game.
+     * @param game the game to play
+     * @param tick the number of updates done so far in the game
+     */
+    void act(Game game, long tick);
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package Domain;
+
+/**
+ * Source of time for a game.
+ * The game reads it for the time limit and the pause accounting and tells it about every update,
+ * so a clock can follow the real time or count updates to run games faster than real time.
+ */
+public interface GameClock {
+    
+    /**
+     * Gets the current time of the clock.
+     * @return the time in milliseconds, only differences between two readings are meaningful
+     */
+    long currentTimeMillis();
+    
+    /**
+     * Called by the game once at the start of every update.
+     */
+    void tick();
+    
+    /**
+     * Called by the game when it skips several updates at once.
+     * @param count the number of ticks
+     */
+    default void advance(long count) {
+        for (long i = 0; i < count; i++) {
+            tick();
+        }
+    }
+    
+    /**
+     * Gets how much time passes on every tick, so the game can tell when its time limit comes
+     * without running the updates.
+     * @return the milliseconds per tick, 0 if the time doesn't depend on the ticks,
+     *         or -1 if it can't be known
+     */
+    default long getMillisPerTick() {
+        return -1;
+    }
+}
\ No newline at end of file
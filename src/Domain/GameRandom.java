@@ -0,0 +1,86 @@
+package Domain;
+
+/**
+ * Seeded random number generator of a game, based on SplitMix64.
+ * Its whole state is one long that can be read and restored, so a run can be replayed
+ * from its seed, and it can be split into independent generators for parallel games.
+ * It is not thread-safe and has no shared state: each game uses its own generator.
+ */
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    
+    private long state;
+    
+    /**
+     * Creates a generator from a seed.
+     * @param seed the seed, the same seed always gives the same numbers
+     */
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+    
+    /**
+     * Gets the next random long.
+     * @return a long with all its values equally likely
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+    
+    /**
+     * Gets the next random int between 0 (inclusive) and a bound (exclusive).
+     * @param bound the upper bound, it must be positive
+     * @return a random number in [0, bound)
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        int r = (int) (nextLong() >>> 33);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        // Reject the last partial range so every value is equally likely
+        for (int u = r; u - (r = u % bound) + m < 0; u = (int) (nextLong() >>> 33)) {
+        }
+        return r;
+    }
+    
+    /**
+     * Creates a new generator whose numbers are independent of this one.
+     * This generator advances by one number.
+     * @return the new generator
+     */
+    public GameRandom split() {
+        return new GameRandom(mix(nextLong() ^ 0x6A09E667F3BCC909L));
+    }
+    
+    /**
+     * Gets the current state, which is also the seed that continues the sequence from here.
+     * @return the state
+     */
+    public long getState() {
+        return state;
+    }
+    
+    /**
+     * Restores a state read with getState, or starts again from a seed.
+     * @param state the state
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+    
+    /**
+     * Scrambles the bits of a long (the SplitMix64 finalizer).
+     * @param z the value to scramble
+     * @return the scrambled value
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
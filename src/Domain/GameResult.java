@@ -0,0 +1,102 @@
+package Domain;
+
+/**
+ * Outcome of one game played by the batch simulator.
+ */
+public class GameResult {
+    private final int index;
+    private final long seed;
+    private final int score;
+    private final int fruitsCollected;
+    private final int totalFruits;
+    private final boolean won;
+    private final boolean lost;
+    private final long ticks;
+    
+    /**
+     * Creates the result of a finished game.
+     * @param index the number of the game in its batch
+     * @param seed the seed of the game
+     * @param game the game, once it has finished or reached the update limit
+     */
+    public GameResult(int index, long seed, Game game) {
+        this.index = index;
+        this.seed = seed;
+        this.score = game.getPlayer().getScore();
+        this.fruitsCollected = game.getPlayer().getFruitsCollected();
+        this.totalFruits = game.getTotalFruits();
+        this.won = game.isGameWon();
+        this.lost = game.isGameLost();
+        this.ticks = game.getTickCount();
+    }
+    
+    /**
+     * Gets the number of the game in its batch.
+     * @return the game index
+     */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * Gets the seed the game was played with, to replay it.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * Gets the score of the player.
+     * @return the score
+     */
+    public int getScore() {
+        return score;
+    }
+    
+    /**
+     * Gets the number of fruits the player collected.
+     * @return the fruits collected
+     */
+    public int getFruitsCollected() {
+        return fruitsCollected;
+    }
+    
+    /**
+     * Gets the number of fruits of the level.
+     * @return the total fruits
+     */
+    public int getTotalFruits() {
+        return totalFruits;
+    }
+    
+    /**
+     * Checks if the game was won.
+     * @return true if the player collected every fruit
+     */
+    public boolean isWon() {
+        return won;
+    }
+    
+    /**
+     * Checks if the game was lost.
+     * @return true if the player died or ran out of time
+     */
+    public boolean isLost() {
+        return lost;
+    }
+    
+    /**
+     * Gets the number of updates the game ran.
+     * @return the updates
+     */
+    public long getTicks() {
+        return ticks;
+    }
+    
+    @Override
+    public String toString() {
+        return "Game " + index + " (seed " + seed + "): " + (won ? "won" : lost ? "lost" : "unfinished")
+            + ", score " + score + ", fruits " + fruitsCollected + "/" + totalFruits + ", " + ticks + " ticks";
+    }
+}
\ No newline at end of file
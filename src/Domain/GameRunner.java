@@ -0,0 +1,208 @@
+package Domain;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs a game on its own simulation thread, away from the interface thread.
+ *
+ * The thread is driven by a FixedStepLoop of steps of about INPUT_INTERVAL milliseconds:
+ * every step applies the queued commands and every few steps, as many as fit in the
+ * update interval, the step also updates the game. After the steps of an iteration the
+ * simulation thread publishes a FrameSnapshot of the game, which renderers read without
+ * locks, and calls the frame listener.
+ *
+ * Ownership model: once the runner is started, only the simulation thread changes the game.
+ * Other threads send the player's actions to the game's InputQueue, or any other action
+ * with submit, and the simulation thread applies them at its next step.
+ * The simulation thread also changes the game while holding the game's monitor, so other
+ * threads that need more than the snapshot can read a consistent game by synchronizing on it.
+ * Updates follow their own schedule: a slow renderer never delays them,
+ * and a slow update never blocks the thread that sends the commands.
+ */
+public class GameRunner {
+    public static final long INPUT_INTERVAL = 16; // target milliseconds of a step
+    public static final int MAX_CATCH_UP_STEPS = 5;
+    
+    private final Game game;
+    private final int stepsPerUpdate;
+    private final FixedStepLoop loop;
+    private final Queue<Consumer<Game>> commands;
+    private final FrameBuffer frames;
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile Runnable frameListener;
+    
+    /**
+     * Creates a runner that updates the game with the interval of the game window.
+     * @param game the game to run
+     */
+    public GameRunner(Game game) {
+        this(game, Game.UPDATE_INTERVAL, new FrameBuffer());
+    }
+    
+    /**
+     * Creates a runner that updates the game with the interval of the game window
+     * and publishes its frames to an existing buffer.
+     * @param game the game to run
+     * @param frames the buffer that receives the frames, for example the one of a renderer
+     */
+    public GameRunner(Game game, FrameBuffer frames) {
+        this(game, Game.UPDATE_INTERVAL, frames);
+    }
+    
+    /**
+     * Creates a runner that updates the game with a given interval.
+     * @param game the game to run
+     * @param tickMillis the milliseconds between two updates
+     */
+    public GameRunner(Game game, long tickMillis) {
+        this(game, tickMillis, new FrameBuffer());
+    }
+    
+    /**
+     * Creates a runner that updates the game with a given interval and publishes its frames to a buffer.
+     * @param game the game to run
+     * @param tickMillis the milliseconds between two updates
+     * @param frames the buffer that receives the frames
+     */
+    public GameRunner(Game game, long tickMillis, FrameBuffer frames) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Invalid update interval: " + tickMillis);
+        }
+        this.game = game;
+        this.stepsPerUpdate = (int) Math.max(1, Math.round((double) tickMillis / INPUT_INTERVAL));
+        this.loop = new FixedStepLoop(TimeUnit.MILLISECONDS.toNanos(tickMillis) / stepsPerUpdate,
+            MAX_CATCH_UP_STEPS, this::step, this::render);
+        this.commands = new ConcurrentLinkedQueue<>();
+        this.frames = frames;
+        this.thread = new Thread(this::run, "Game simulation");
+        this.thread.setDaemon(true);
+    }
+    
+    /**
+     * Publishes the first frame and starts the simulation thread.
+     */
+    public void start() {
+        synchronized (game) {
+            frames.publish(game);
+        }
+        running = true;
+        thread.start();
+    }
+    
+    /**
+     * Stops the simulation thread and waits for it to finish its current work.
+     * Commands not run yet are discarded.
+     */
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Checks if the simulation thread is running.
+     * @return true if it has been started and not stopped
+     */
+    public boolean isRunning() {
+        return running && thread.isAlive();
+    }
+    
+    /**
+     * Sends an action to the simulation thread, it can be called from any thread.
+     * The actions run in the order they are sent, after the queued player commands.
+     * Player actions should go to the game's InputQueue, which doesn't allocate.
+     * @param command the action to perform on the game, for example {@code Game::reset}
+     */
+    public void submit(Consumer<Game> command) {
+        commands.add(command);
+    }
+    
+    /**
+     * Gets the game run by this runner. Threads other than the simulation thread
+     * must synchronize on it while they read it and must not change it.
+     * @return the game
+     */
+    public Game getGame() {
+        return game;
+    }
+    
+    /**
+     * Sets the callback run on the simulation thread after every new frame is published,
+     * for example to ask the interface to repaint. It must return quickly.
+     * @param frameListener the callback, or null for none
+     */
+    public void setFrameListener(Runnable frameListener) {
+        this.frameListener = frameListener;
+    }
+    
+    /**
+     * Gets the number of loop steps in every game update.
+     * @return the steps per update
+     */
+    public int getStepsPerUpdate() {
+        return stepsPerUpdate;
+    }
+    
+    /**
+     * Gets the buffer the frames of the game are published to.
+     * @return the frame buffer
+     */
+    public FrameBuffer getFrames() {
+        return frames;
+    }
+    
+    /**
+     * Simulation thread: runs the loop until the runner is stopped.
+     * When the thread falls behind, missed steps are dropped instead of run in a burst.
+     */
+    private void run() {
+        loop.run(() -> running);
+    }
+    
+    /**
+     * Runs one loop step: applies the commands and updates the game at the end of every update interval.
+     * @param index the number of steps run before this one
+     */
+    private void step(long index) {
+        synchronized (game) {
+            game.applyInput();
+            runCommands();
+            if ((index + 1) % stepsPerUpdate == 0) {
+                game.update();
+            }
+        }
+    }
+    
+    /**
+     * Publishes a frame of the game and tells the frame listener.
+     */
+    private void render() {
+        synchronized (game) {
+            frames.publish(game);
+        }
+        Runnable listener = frameListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Runs the actions sent with submit. The caller must hold the game's monitor.
+     */
+    private void runCommands() {
+        Consumer<Game> command;
+        while ((command = commands.poll()) != null) {
+            command.accept(game);
+        }
+    }
+}
\ No newline at end of file
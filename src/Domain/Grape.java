@@ -12,6 +12,6 @@ public class Grape extends Fruit {
      * @param y the vertical position on the board
      */
     public Grape(int x, int y) {
-        super(x, y, "GRAPE", 50);
+        super(x, y, GRAPE, 50);
     }
 }
\ No newline at end of file
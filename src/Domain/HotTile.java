@@ -21,16 +21,7 @@ public class HotTile extends Obstacle {
      * @param board the game board containing all ice blocks to check
      */
     public void meltIceBlockIfPresent(Board board) {
-        int x = position.getX();
-        int y = position.getY();
-        
-        for (IceBlock block : board.getIceBlocks()) {
-            if (block.exists() && 
-            	block.getPosition().getX() == x && 
-            	block.getPosition().getY() == y) {
-                block.destroy();
-                break;
-            }
-        }
+        int position = getPackedPosition();
+        board.destroyIceBlockAt(Position.unpackX(position), Position.unpackY(position));
     }
 }
\ No newline at end of file
@@ -4,8 +4,11 @@ package Domain;
  * Represents an ice block obstacle in the game.
  * They are solid but not lethal obstacles that block movement for players and enemies.
  * They can be created by the player and destroyed also by the player or the Orange Squid.
+ * Blocks created by a board belong to its pool and are reused after they are destroyed and cleaned.
  */
 public class IceBlock extends Obstacle {
+    private Board board; // board whose pool owns the block, null for standalone blocks
+    int poolSlot; // index in the board's pool while the block is listed, -1 otherwise
     
     /**
      * Creates a new ice block at the specified position.
@@ -14,5 +17,38 @@ public class IceBlock extends Obstacle {
      */
     public IceBlock(int x, int y) {
         super(x, y, "ICE_BLOCK", true, false);
+        this.poolSlot = -1;
+    }
+    
+    /**
+     * Creates a new ice block owned by a board's pool.
+     * @param board the board that owns the block
+     */
+    IceBlock(Board board) {
+        this(0, 0);
+        this.board = board;
+    }
+    
+    /**
+     * Moves a pooled block to a cell and makes it exist again.
+     * @param x the horizontal position on the board
+     * @param y the vertical position on the board
+     */
+    void place(int x, int y) {
+        setPackedPosition(Position.pack(x, y));
+        create();
+    }
+    
+    /**
+     * Destroys the ice block and tells its board, so it is recycled on the next cleanup.
+     */
+    @Override
+    public void destroy() {
+        if (exists()) {
+            super.destroy();
+            if (board != null) {
+                board.iceBlockDestroyed(this);
+            }
+        }
     }
 }
\ No newline at end of file
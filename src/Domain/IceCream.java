@@ -7,9 +7,10 @@ package Domain;
  * and can be eliminated by colliding with enemies or certain obstacles.
  */
 public class IceCream {
-    private Position position;
+    private int position; // packed, see Position.pack
+    private Position view; // view over the packed position, created when asked for
     private String flavor; // "VANILLA", "STRAWBERRY", "CHOCOLATE"
-    private String direction; // "UP", "DOWN", "LEFT", "RIGHT"
+    private int direction; // Board.UP, DOWN, LEFT or RIGHT
     private int fruitsCollected;
     private boolean alive;
     private int score;
@@ -21,9 +22,9 @@ public class IceCream {
      * @param flavor the flavor/color of the ice cream: "VANILLA", "STRAWBERRY" or "CHOCOLATE"
      */
     public IceCream(int x, int y, String flavor) {
-        position = new Position(x, y);
+        position = Position.pack(x, y);
         this.flavor = flavor;
-        direction = "DOWN";
+        direction = Board.DOWN;
         fruitsCollected = 0;
         alive = true;
         score = 0;
@@ -34,6 +35,17 @@ public class IceCream {
      * @return the position of the ice cream
      */
     public Position getPosition() {
+        if (view == null) {
+            view = new PackedPosition(this);
+        }
+        return view;
+    }
+    
+    /**
+     * Gets the current position of the ice cream packed in an int, see Position.pack.
+     * @return the packed position of the ice cream
+     */
+    public int getPackedPosition() {
         return position;
     }
     
@@ -50,6 +62,14 @@ public class IceCream {
      * @return the direction: "UP", "DOWN", "LEFT" or "RIGHT"
      */
     public String getDirection() {
+        return Board.directionName(direction);
+    }
+    
+    /**
+     * Gets the current direction the ice cream is facing as a board direction.
+     * @return Board.UP, DOWN, LEFT or RIGHT
+     */
+    public int getDirectionIndex() {
         return direction;
     }
     
@@ -74,6 +94,18 @@ public class IceCream {
      * @param direction the new direction: "UP", "DOWN", "LEFT" or "RIGHT"
      */
     public void setDirection(String direction) {
+        int index = Board.directionIndex(direction);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown direction: " + direction);
+        }
+        this.direction = index;
+    }
+    
+    /**
+     * Updates the direction the ice cream is facing.
+     * @param direction the new direction: Board.UP, DOWN, LEFT or RIGHT
+     */
+    public void setDirection(int direction) {
         this.direction = direction;
     }
     
@@ -83,8 +115,7 @@ public class IceCream {
      * @param newY the new vertical position
      */
     public void move(int newX, int newY) {
-        position.setX(newX);
-        position.setY(newY);
+        position = Position.pack(newX, newY);
     }
     
     /**
@@ -109,11 +140,10 @@ public class IceCream {
      * @param y the new vertical starting position
      */
     public void reset(int x, int y) {
-        position.setX(x);
-        position.setY(y);
+        position = Position.pack(x, y);
         fruitsCollected = 0;
         alive = true;
-        direction = "DOWN";
+        direction = Board.DOWN;
         score = 0;
     }
     
@@ -124,4 +154,57 @@ public class IceCream {
     public int getScore() {
         return score;
     }
+    
+    /**
+     * Position whose coordinates are read from and written to the packed position of an ice cream,
+     * so it always shows where the ice cream is.
+     */
+    private static class PackedPosition extends Position {
+        private final IceCream owner;
+        
+        /**
+         * Creates the position view of an ice cream.
+         * @param owner the ice cream
+         */
+        PackedPosition(IceCream owner) {
+            super(0, 0);
+            this.owner = owner;
+        }
+        
+        /**
+         * Gets the horizontal coordinate from the ice cream.
+         * @return the x coordinate
+         */
+        @Override
+        public int getX() {
+            return Position.unpackX(owner.position);
+        }
+        
+        /**
+         * Gets the vertical coordinate from the ice cream.
+         * @return the y coordinate
+         */
+        @Override
+        public int getY() {
+            return Position.unpackY(owner.position);
+        }
+        
+        /**
+         * Updates the horizontal coordinate of the ice cream.
+         * @param x the new x coordinate
+         */
+        @Override
+        public void setX(int x) {
+            owner.position = Position.pack(x, getY());
+        }
+        
+        /**
+         * Updates the vertical coordinate of the ice cream.
+         * @param y the new y coordinate
+         */
+        @Override
+        public void setY(int y) {
+            owner.position = Position.pack(getX(), y);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package Domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free queue of player commands for a game.
+ * Any number of threads (the interface, a network connection, a bot, a replay) can send commands
+ * at the same time, and the thread that runs the game applies them in order at its next tick.
+ * Commands are a kind and an argument stored in preallocated slots of a ring buffer, so sending
+ * one doesn't allocate and doesn't lock. Every slot has a sequence number that tells whether it is
+ * free for the senders or ready for the reader: senders claim a position with a compare-and-set
+ * and publish the slot by advancing its sequence once the command is written.
+ */
+public class InputQueue {
+    public static final int MOVE = 0; // the argument is Board.UP, DOWN, LEFT or RIGHT
+    public static final int ICE = 1;
+    public static final int PAUSE = 2;
+    
+    private final int mask;
+    private final int[] kinds;
+    private final int[] arguments;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail;
+    private long head; // only used by the thread that applies the commands
+    
+    /**
+     * Creates an empty queue.
+     * @param capacity the number of commands it can hold, rounded up to a power of two
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.kinds = new int[size];
+        this.arguments = new int[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.tail = new AtomicLong();
+        this.head = 0;
+    }
+    
+    /**
+     * Sends a command, it can be called from any thread.
+     * @param kind MOVE, ICE or PAUSE
+     * @param argument the direction for MOVE, ignored otherwise
+     * @return true if the command was queued, false if the queue is full and the command was dropped
+     */
+    public boolean offer(int kind, int argument) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long available = sequences.get(slot) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    kinds[slot] = kind;
+                    arguments[slot] = argument;
+                    sequences.lazySet(slot, position + 1); // publishes the slot to the reader
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+            // Another sender took this position first, try the next one
+        }
+    }
+    
+    /**
+     * Sends a move command.
+     * @param direction Board.UP, DOWN, LEFT or RIGHT
+     * @return true if the command was queued, false if the queue is full
+     */
+    public boolean move(int direction) {
+        if (direction < Board.UP || direction > Board.RIGHT) {
+            throw new IllegalArgumentException("Invalid direction: " + direction);
+        }
+        return offer(MOVE, direction);
+    }
+    
+    /**
+     * Sends a command to create or destroy ice blocks.
+     * @return true if the command was queued, false if the queue is full
+     */
+    public boolean ice() {
+        return offer(ICE, 0);
+    }
+    
+    /**
+     * Sends a command to pause or resume the game.
+     * @return true if the command was queued, false if the queue is full
+     */
+    public boolean pause() {
+        return offer(PAUSE, 0);
+    }
+    
+    /**
+     * Applies the queued commands to a game in the order they were sent.
+     * Only the thread that runs the game may call it. Commands sent while it runs
+     * are applied too if their slot is already published.
+     * @param game the game to change
+     * @return the number of commands applied
+     */
+    public int drainTo(Game game) {
+        int applied = 0;
+        while (true) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) {
+                return applied;
+            }
+            int kind = kinds[slot];
+            int argument = arguments[slot];
+            sequences.lazySet(slot, head + mask + 1); // frees the slot for the next lap
+            head++;
+            applied++;
+            
+            switch(kind) {
+                case MOVE:
+                    game.movePlayer(argument);
+                    break;
+                case ICE:
+                    game.handleIceBlock();
+                    break;
+                case PAUSE:
+                    game.togglePause();
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Gets the number of commands waiting to be applied. The value is only an estimate
+     * while other threads are sending commands.
+     * @return the number of queued commands
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+    
+    /**
+     * Gets the number of commands the queue can hold.
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+}
\ No newline at end of file
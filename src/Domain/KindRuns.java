@@ -0,0 +1,105 @@
+package Domain;
+
+import java.util.Arrays;
+
+/**
+ * Slots of an EntityStore split in runs of consecutive slots of the same kind, so a game
+ * can update its entities in store order and still run one loop per run, where every
+ * entity calls the same code.
+ * Entities of a kind the store doesn't know (-1) or an unknown kind form runs of kind -1.
+ */
+class KindRuns {
+    private final int kindCount;
+    private final int[] counts; // entities of every kind, the last one for kind -1
+    private int[] starts; // run r is the slots starts[r] to starts[r + 1] - 1
+    private int[] kinds;
+    private int runCount;
+    
+    /**
+     * Creates the runs of a store with no entities.
+     * @param kindCount the number of kinds, for example Enemy.KIND_COUNT
+     */
+    KindRuns(int kindCount) {
+        this.kindCount = kindCount;
+        this.counts = new int[kindCount + 1];
+        this.starts = new int[1];
+        this.kinds = new int[0];
+    }
+    
+    /**
+     * Splits the slots of a store in runs again.
+     * @param store the store to split
+     */
+    void rebuild(EntityStore store) {
+        int size = store.size();
+        if (kinds.length < size) {
+            starts = new int[size + 1];
+            kinds = new int[size];
+        }
+        Arrays.fill(counts, 0);
+        runCount = 0;
+        for (int i = 0; i < size; i++) {
+            int kind = kindOf(store.getKind(i));
+            counts[kind < 0 ? kindCount : kind]++;
+            if (runCount == 0 || kinds[runCount - 1] != kind) {
+                starts[runCount] = i;
+                kinds[runCount++] = kind;
+            }
+        }
+        starts[runCount] = size;
+    }
+    
+    /**
+     * Gets the kind the runs use for a store kind.
+     * @param kind the kind of a slot
+     * @return the kind, or -1 if it is not a known kind
+     */
+    private int kindOf(int kind) {
+        return kind >= 0 && kind < kindCount ? kind : -1;
+    }
+    
+    /**
+     * Gets the number of runs.
+     * @return the number of runs, 0 for an empty store
+     */
+    int size() {
+        return runCount;
+    }
+    
+    /**
+     * Gets the first slot of a run.
+     * @param run the run, between 0 and size - 1
+     * @return the first slot of the run
+     */
+    int start(int run) {
+        return starts[run];
+    }
+    
+    /**
+     * Gets where a run ends.
+     * @param run the run, between 0 and size - 1
+     * @return the slot after the last one of the run
+     */
+    int end(int run) {
+        return starts[run + 1];
+    }
+    
+    /**
+     * Gets the kind of the entities of a run.
+     * @param run the run, between 0 and size - 1
+     * @return the kind, or -1 for entities without a known kind
+     */
+    int kind(int run) {
+        return kinds[run];
+    }
+    
+    /**
+     * Gets the number of entities of a kind.
+     * @param kind the kind, or -1 for the entities without a known kind
+     * @return the number of slots of the kind
+     */
+    int count(int kind) {
+        int known = kindOf(kind);
+        return counts[known < 0 ? kindCount : known];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package Domain;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads levels from external files.
+ * Levels are written in a text format and compiled once into a binary file
+ * (same name with the ".bdl" extension) that later runs map into memory without parsing.
+ *
+ * Text format:
+ * - Lines starting with '#' and empty lines are ignored.
+ * - An optional "level N" line chooses the enemy types like the built-in levels (default 1).
+ * - Every other line is a row of comma separated cell codes, all rows with the same length.
+ *   The codes are the ones of the level matrices, see LevelMap.
+ * - There must be exactly one player spawn (3).
+ */
+public class LevelLoader {
+    public static final String TEXT_EXTENSION = ".txt";
+    public static final String BINARY_EXTENSION = ".bdl";
+
+    private LevelLoader() {
+    }
+
+    /**
+     * Loads a level text file, compiling it first if the binary file is missing or older.
+     * @param textFile the level in the text format
+     * @return the memory-mapped level
+     * @throws BadDopoCreamException if the level can't be read or is not valid
+     */
+    public static LevelMap load(Path textFile) throws BadDopoCreamException {
+        Path binaryFile = binaryFileFor(textFile);
+        try {
+            if (!Files.exists(binaryFile) ||
+                Files.getLastModifiedTime(binaryFile).compareTo(Files.getLastModifiedTime(textFile)) < 0) {
+                compile(textFile, binaryFile);
+            }
+        } catch (IOException e) {
+            throw new BadDopoCreamException("Can't read level file " + textFile, e);
+        }
+        return open(binaryFile);
+    }
+
+    /**
+     * Loads every level text file of a directory, in file name order.
+     * @param directory the directory with the level files
+     * @return the memory-mapped levels
+     * @throws BadDopoCreamException if a level can't be read or is not valid
+     */
+    public static List<LevelMap> loadDirectory(Path directory) throws BadDopoCreamException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + TEXT_EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new BadDopoCreamException("Can't list level directory " + directory, e);
+        }
+        files.sort(null);
+
+        List<LevelMap> levels = new ArrayList<>(files.size());
+        for (Path file : files) {
+            levels.add(load(file));
+        }
+        return levels;
+    }
+
+    /**
+     * Compiles a level text file into the binary format.
+     * The binary file is written next to its final name and then moved, so
+     * other processes never map a half written file.
+     * @param textFile the level in the text format
+     * @param binaryFile the file to write
+     * @throws BadDopoCreamException if the level can't be read, written or is not valid
+     */
+    public static void compile(Path textFile, Path binaryFile) throws BadDopoCreamException {
+        LevelMap level = parse(textFile);
+        try {
+            Path parent = binaryFile.toAbsolutePath().getParent();
+            Path temporary = Files.createTempFile(parent, binaryFile.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                ByteBuffer data = level.getData();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temporary, binaryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new BadDopoCreamException("Can't write compiled level " + binaryFile, e);
+        }
+    }
+
+    /**
+     * Opens a compiled level file by mapping it into memory.
+     * @param binaryFile the compiled level
+     * @return the memory-mapped level
+     * @throws BadDopoCreamException if the file can't be mapped or is not a compiled level
+     */
+    public static LevelMap open(Path binaryFile) throws BadDopoCreamException {
+        try (FileChannel channel = FileChannel.open(binaryFile, StandardOpenOption.READ)) {
+            return new LevelMap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new BadDopoCreamException("Can't open compiled level " + binaryFile, e);
+        }
+    }
+
+    /**
+     * Parses a level text file.
+     * @param textFile the level in the text format
+     * @return the level, kept in memory
+     * @throws BadDopoCreamException if the file can't be read or is not valid
+     */
+    public static LevelMap parse(Path textFile) throws BadDopoCreamException {
+        int level = 1;
+        List<int[]> rows = new ArrayList<>();
+        int spawns = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("level")) {
+                    level = parseNumber(line.substring(5).trim(), textFile, lineNumber);
+                    continue;
+                }
+
+                String[] values = line.split(",");
+                int[] row = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    int value = parseNumber(values[i].trim(), textFile, lineNumber);
+                    if (value < 0 || value > LevelMap.MAX_CELL_CODE) {
+                        throw new BadDopoCreamException(textFile + ":" + lineNumber + ": unknown cell code " + value);
+                    }
+                    if (value == 3) {
+                        spawns++;
+                    }
+                    row[i] = value;
+                }
+                if (!rows.isEmpty() && row.length != rows.get(0).length) {
+                    throw new BadDopoCreamException(textFile + ":" + lineNumber + ": expected "
+                        + rows.get(0).length + " cells but found " + row.length);
+                }
+                rows.add(row);
+            }
+        } catch (IOException e) {
+            throw new BadDopoCreamException("Can't read level file " + textFile, e);
+        }
+
+        if (rows.isEmpty()) {
+            throw new BadDopoCreamException(textFile + ": the level has no rows");
+        }
+        if (spawns != 1) {
+            throw new BadDopoCreamException(textFile + ": the level needs exactly one player spawn, found " + spawns);
+        }
+        return LevelMap.fromMatrix(level, rows.toArray(new int[0][]));
+    }
+
+    /**
+     * Gets the compiled file name for a level text file.
+     * @param textFile the level in the text format
+     * @return the path of the binary file
+     */
+    public static Path binaryFileFor(Path textFile) {
+        String name = textFile.getFileName().toString();
+        if (name.endsWith(TEXT_EXTENSION)) {
+            name = name.substring(0, name.length() - TEXT_EXTENSION.length());
+        }
+        return textFile.resolveSibling(name + BINARY_EXTENSION);
+    }
+
+    /**
+     * Parses a number of the text format.
+     * @param text the text to parse
+     * @param file the file being parsed, for the error message
+     * @param lineNumber the line being parsed, for the error message
+     * @return the number
+     * @throws BadDopoCreamException if the text is not a number
+     */
+    private static int parseNumber(String text, Path file, int lineNumber) throws BadDopoCreamException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new BadDopoCreamException(file + ":" + lineNumber + ": invalid number '" + text + "'", e);
+        }
+    }
+}
\ No newline at end of file
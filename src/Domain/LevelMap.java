@@ -0,0 +1,129 @@
+package Domain;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only layout of a level stored in the compiled binary format.
+ * The data can live in a memory-mapped level file or in memory, cells are read
+ * straight from the buffer so opening a compiled level doesn't parse anything.
+ *
+ * Binary format (big endian):
+ * int magic, short version, short level, int width, int height,
+ * followed by one byte per cell, row by row, with the same codes used by the level matrices:
+ * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn, 4 = enemy, 5 = banana,
+ * 6 = grape, 7 = pineapple, 8 = cherry, 9 = hot tile, 10 = campfire
+ */
+public class LevelMap {
+    public static final int MAGIC = 0x42444C56; // "BDLV"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int MAX_CELL_CODE = 10;
+
+    private final ByteBuffer data;
+    private final int level;
+    private final int width;
+    private final int height;
+
+    /**
+     * Creates a level view over a buffer in the binary format.
+     * @param data the buffer holding the header and the cells
+     * @throws BadDopoCreamException if the header is not valid or the buffer is too short
+     */
+    public LevelMap(ByteBuffer data) throws BadDopoCreamException {
+        this.data = data.asReadOnlyBuffer();
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new BadDopoCreamException("Not a compiled level file");
+        }
+        if (data.getShort(4) != VERSION) {
+            throw new BadDopoCreamException("Unsupported level file version: " + data.getShort(4));
+        }
+        this.level = data.getShort(6);
+        this.width = data.getInt(8);
+        this.height = data.getInt(12);
+        if (width <= 0 || height <= 0 || width > Position.MAX_COORDINATE || height > Position.MAX_COORDINATE
+            || (long) width * height > data.limit() - HEADER_SIZE) {
+            throw new BadDopoCreamException("Corrupted level file: bad size " + width + "x" + height);
+        }
+    }
+
+    /**
+     * Creates a level in memory from a level matrix.
+     * @param level the level number, it decides the enemy types: 1, 2 or 3
+     * @param matrix the level layout, all rows must have the same length
+     * @return the level layout in the binary format
+     */
+    public static LevelMap fromMatrix(int level, int[][] matrix) {
+        int height = matrix.length;
+        int width = matrix[0].length;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + width * height);
+        writeHeader(buffer, level, width, height);
+        for (int[] row : matrix) {
+            for (int x = 0; x < width; x++) {
+                buffer.put((byte) row[x]);
+            }
+        }
+        buffer.flip();
+        try {
+            return new LevelMap(buffer);
+        } catch (BadDopoCreamException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the header of the binary format at the current buffer position.
+     * @param buffer the buffer to write to
+     * @param level the level number
+     * @param width the level width
+     * @param height the level height
+     */
+    static void writeHeader(ByteBuffer buffer, int level, int width, int height) {
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) level);
+        buffer.putInt(width);
+        buffer.putInt(height);
+    }
+
+    /**
+     * Gets the level number, used to choose the enemy types.
+     * @return the level number
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the width of the layout.
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the layout.
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the code of a cell.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return the cell code, see the class description
+     */
+    public int getCell(int x, int y) {
+        return data.get(HEADER_SIZE + y * width + x) & 0xFF;
+    }
+
+    /**
+     * Gets a read-only copy of the buffer holding the level in the binary format.
+     * @return the level data, including the header
+     */
+    public ByteBuffer getData() {
+        return data.duplicate();
+    }
+}
\ No newline at end of file
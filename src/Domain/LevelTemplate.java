@@ -0,0 +1,391 @@
+package Domain;
+
+import java.util.Arrays;
+
+/**
+ * Immutable description of a level shared by every game that plays it.
+ * The layout is read once and turned into what boards and games need to start:
+ * the player spawn, the fruit and enemy spawns and the wall, ice, hot tile and campfire layers.
+ * Templates are never modified after they are created, so one instance per level can be
+ * used by any number of games at the same time, from any thread.
+ */
+public final class LevelTemplate {
+    /**
+     * Layout of level 1.
+     * The level matrix uses numbers to represent different elements:
+     * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn,
+     * 4 = enemy, 5 = banana, 6 = grape
+     */
+    private static final int[][] LEVEL_1 = {
+        {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
+        {1,6,0,0,0,0,0,0,0,0,0,0,4,0,6,1},
+        {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
+        {1,0,5,0,0,0,0,0,0,0,0,0,0,5,0,1},
+        {1,0,0,2,2,0,0,0,0,0,0,2,2,0,0,1},
+        {1,0,0,2,6,0,0,0,0,0,4,6,2,0,0,1},
+        {1,5,0,2,0,0,1,1,1,1,0,0,2,0,5,1},
+        {1,0,0,2,0,0,1,1,1,1,0,0,2,0,0,1},
+        {1,0,0,2,0,0,1,1,1,1,0,0,2,0,0,1},
+        {1,5,0,2,0,0,1,1,1,1,0,0,2,0,5,1},
+        {1,0,0,2,6,0,0,0,0,0,0,6,2,0,0,1},
+        {1,0,0,2,2,0,0,0,0,0,0,2,2,0,0,1},
+        {1,0,5,0,0,0,0,0,0,0,0,0,0,5,0,1},
+        {1,0,0,0,0,0,0,3,0,0,0,0,0,0,0,1},
+        {1,6,0,0,0,0,0,0,0,0,0,0,0,0,6,1},
+        {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
+    };
+    
+    /**
+     * Layout of level 2.
+     * The level matrix uses numbers to represent different elements:
+     * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn,
+     * 4 = enemy, 5 = banana, 7 = pineapple, 9 = hot tile
+     */
+    private static final int[][] LEVEL_2 = {
+        {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
+        {1,0,0,7,0,0,0,0,0,0,0,0,7,0,0,1},
+        {1,0,2,0,2,0,2,0,0,2,0,2,0,2,0,1},
+        {1,7,0,0,0,0,0,0,0,0,0,0,0,0,7,1},
+        {1,0,2,0,9,0,5,2,2,5,0,9,0,2,0,1},
+        {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
+        {1,0,2,0,2,0,1,1,1,1,0,2,0,2,0,1},
+        {1,0,2,0,5,0,1,1,1,1,0,5,0,2,0,1},
+        {1,0,2,0,5,0,1,1,1,1,0,5,0,2,0,1},
+        {1,0,2,0,2,0,1,1,1,1,0,2,0,2,0,1},
+        {1,0,0,0,0,0,0,0,0,0,0,0,0,0,0,1},
+        {1,0,2,0,9,0,5,2,2,5,0,9,0,2,0,1},
+        {1,7,0,3,0,0,0,0,0,0,0,0,4,0,7,1},
+        {1,0,2,0,2,0,2,0,0,2,0,2,0,2,0,1},
+        {1,0,0,7,0,0,0,0,0,0,0,0,7,0,0,1},
+        {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
+    };
+    
+    /**
+     * Layout of level 3.
+     * The level matrix uses numbers to represent different elements:
+     * 0 = empty space, 1 = wall, 2 = ice block, 3 = player spawn,
+     * 4 = enemy, 7 = pineapple, 8 = cherry, 10 = campfire
+     */
+    private static final int[][] LEVEL_3 = {
+        {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1},
+        {1,8,0,0,7,0,0,0,0,0,0,7,0,0,8,1},
+        {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
+        {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
+        {1,7,0,0,10,0,0,0,0,0,0,10,0,0,7,1},
+        {1,0,2,2,0,8,0,4,0,0,8,0,2,2,0,1},
+        {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
+        {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
+        {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
+        {1,0,2,2,0,0,1,1,1,1,0,0,2,2,0,1},
+        {1,0,2,2,0,8,0,0,3,0,8,0,2,2,0,1},
+        {1,7,0,0,10,0,0,0,0,0,0,10,0,0,7,1},
+        {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
+        {1,0,2,2,0,2,2,2,2,2,2,0,2,2,0,1},
+        {1,8,0,0,7,0,0,0,0,0,0,7,0,0,8,1},
+        {1,1,1,1,1,1,1,1,1,1,1,1,1,1,1,1}
+    };
+    
+    private static final LevelTemplate[] BUILT_IN = {
+        new LevelTemplate(LevelMap.fromMatrix(1, LEVEL_1)),
+        new LevelTemplate(LevelMap.fromMatrix(2, LEVEL_2)),
+        new LevelTemplate(LevelMap.fromMatrix(3, LEVEL_3))
+    };
+    
+    private final int level;
+    private final int width;
+    private final int height;
+    private final int spawnX;
+    private final int spawnY;
+    private final int[] enemyCells;
+    private final int[] fruitCells;
+    private final int[] fruitCodes;
+    private final int[] iceCells;
+    private final int[] hotTileCells;
+    private final int[] campfireCells;
+    private final BitLayer walls;
+    private final BitLayer hotTiles;
+    private final BitLayer ice;
+    private final BitLayer iceColumns;
+    private final BitLayer blocked;
+    private final BitLayer wallColumns;
+    
+    /**
+     * Creates a template by reading a level layout once.
+     * @param map the level layout
+     * @throws IllegalArgumentException if the layout has no player spawn
+     */
+    private LevelTemplate(LevelMap map) {
+        this.level = map.getLevel();
+        this.width = map.getWidth();
+        this.height = map.getHeight();
+        int cells = width * height;
+        this.walls = new BitLayer(cells);
+        this.hotTiles = new BitLayer(cells);
+        this.ice = new BitLayer(cells);
+        this.iceColumns = new BitLayer(cells);
+        this.wallColumns = new BitLayer(cells);
+        this.blocked = new BitLayer(cells);
+        
+        int[] enemies = new int[cells];
+        int[] fruits = new int[cells];
+        int[] codes = new int[cells];
+        int[] iceList = new int[cells];
+        int[] hotList = new int[cells];
+        int[] fireList = new int[cells];
+        int enemyCount = 0;
+        int fruitCount = 0;
+        int iceCount = 0;
+        int hotCount = 0;
+        int fireCount = 0;
+        int spawn = -1;
+        
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                int value = map.getCell(x, y);
+                
+                switch(value) {
+                    case 1: // Wall
+                        walls.set(cell);
+                        wallColumns.set(x * height + y);
+                        blocked.set(cell);
+                        break;
+                    case 2: // Ice block
+                        ice.set(cell);
+                        iceColumns.set(x * height + y);
+                        blocked.set(cell);
+                        iceList[iceCount++] = cell;
+                        break;
+                    case 3: // Player spawn, the first one is used
+                        if (spawn < 0) {
+                            spawn = cell;
+                        }
+                        break;
+                    case 4: // Enemy
+                        enemies[enemyCount++] = cell;
+                        break;
+                    case 5: // Banana
+                    case 6: // Grapes
+                    case 7: // Pineapple
+                    case 8: // Cherry
+                        fruits[fruitCount] = cell;
+                        codes[fruitCount] = value;
+                        fruitCount++;
+                        break;
+                    case 9: // Hot tile
+                        hotTiles.set(cell);
+                        hotList[hotCount++] = cell;
+                        break;
+                    case 10: // Campfire
+                        fireList[fireCount++] = cell;
+                        break;
+                }
+            }
+        }
+        
+        if (spawn < 0) {
+            throw new IllegalArgumentException("The level has no player spawn");
+        }
+        this.spawnX = spawn % width;
+        this.spawnY = spawn / width;
+        this.enemyCells = Arrays.copyOf(enemies, enemyCount);
+        this.fruitCells = Arrays.copyOf(fruits, fruitCount);
+        this.fruitCodes = Arrays.copyOf(codes, fruitCount);
+        this.iceCells = Arrays.copyOf(iceList, iceCount);
+        this.hotTileCells = Arrays.copyOf(hotList, hotCount);
+        this.campfireCells = Arrays.copyOf(fireList, fireCount);
+    }
+    
+    /**
+     * Gets the shared template of a built-in level.
+     * @param level the level number: 1, 2 or 3, any other number gives level 1
+     * @return the template of the level
+     */
+    public static LevelTemplate forLevel(int level) {
+        if (level < 1 || level > BUILT_IN.length) {
+            return BUILT_IN[0];
+        }
+        return BUILT_IN[level - 1];
+    }
+    
+    /**
+     * Creates a template from a level layout, for example one loaded with LevelLoader.
+     * The template should be created once per level and shared by all its games.
+     * @param map the level layout
+     * @return the new template
+     * @throws IllegalArgumentException if the layout has no player spawn
+     */
+    public static LevelTemplate from(LevelMap map) {
+        return new LevelTemplate(map);
+    }
+    
+    /**
+     * Gets the level number, used to choose the enemy types.
+     * @return the level number
+     */
+    public int getLevel() {
+        return level;
+    }
+    
+    /**
+     * Gets the width of the layout.
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Gets the height of the layout.
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Gets the horizontal position where the player starts.
+     * @return the spawn x coordinate
+     */
+    public int getSpawnX() {
+        return spawnX;
+    }
+    
+    /**
+     * Gets the vertical position where the player starts.
+     * @return the spawn y coordinate
+     */
+    public int getSpawnY() {
+        return spawnY;
+    }
+    
+    /**
+     * Gets the number of enemies of the level.
+     * @return the enemy count
+     */
+    public int getEnemyCount() {
+        return enemyCells.length;
+    }
+    
+    /**
+     * Gets the cell where an enemy starts, cells are numbered row by row.
+     * @param index the enemy index, in reading order
+     * @return the cell index
+     */
+    public int getEnemyCell(int index) {
+        return enemyCells[index];
+    }
+    
+    /**
+     * Gets the number of fruits of the level.
+     * @return the fruit count
+     */
+    public int getFruitCount() {
+        return fruitCells.length;
+    }
+    
+    /**
+     * Gets the cell where a fruit starts, cells are numbered row by row.
+     * @param index the fruit index, in reading order
+     * @return the cell index
+     */
+    public int getFruitCell(int index) {
+        return fruitCells[index];
+    }
+    
+    /**
+     * Gets the type of a fruit as its level code.
+     * @param index the fruit index, in reading order
+     * @return 5 = banana, 6 = grape, 7 = pineapple, 8 = cherry
+     */
+    public int getFruitCode(int index) {
+        return fruitCodes[index];
+    }
+    
+    /**
+     * Gets the number of ice blocks at the start of the level.
+     * @return the ice block count
+     */
+    public int getIceCount() {
+        return iceCells.length;
+    }
+    
+    /**
+     * Gets the cell of an ice block at the start of the level.
+     * @param index the ice block index, in reading order
+     * @return the cell index
+     */
+    public int getIceCell(int index) {
+        return iceCells[index];
+    }
+    
+    /**
+     * Gets the number of hot tiles of the level.
+     * @return the hot tile count
+     */
+    public int getHotTileCount() {
+        return hotTileCells.length;
+    }
+    
+    /**
+     * Gets the cell of a hot tile.
+     * @param index the hot tile index, in reading order
+     * @return the cell index
+     */
+    public int getHotTileCell(int index) {
+        return hotTileCells[index];
+    }
+    
+    /**
+     * Gets the number of campfires of the level.
+     * @return the campfire count
+     */
+    public int getCampfireCount() {
+        return campfireCells.length;
+    }
+    
+    /**
+     * Gets the cell of a campfire.
+     * @param index the campfire index, in reading order
+     * @return the cell index
+     */
+    public int getCampfireCell(int index) {
+        return campfireCells[index];
+    }
+    
+    /**
+     * Checks if the layout has a wall at a position.
+     * @param x the horizontal position
+     * @param y the vertical position
+     * @return true if there's a wall, false otherwise or if the position is outside the layout
+     */
+    public boolean hasWall(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && walls.get(y * width + x);
+    }
+    
+    // The layers below are shared with the boards and must only be read
+    
+    BitLayer getWalls() {
+        return walls;
+    }
+    
+    BitLayer getHotTiles() {
+        return hotTiles;
+    }
+    
+    BitLayer getIce() {
+        return ice;
+    }
+    
+    BitLayer getIceColumns() {
+        return iceColumns;
+    }
+    
+    BitLayer getBlocked() {
+        return blocked;
+    }
+    
+    BitLayer getWallColumns() {
+        return wallColumns;
+    }
+}
\ No newline at end of file
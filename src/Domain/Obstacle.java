@@ -4,12 +4,14 @@ package Domain;
  * Abstract class for all the obstacles in the game.
  * Obstacles can block movement, eliminate the player or have special behaviors.
  */
-public abstract class Obstacle {
-    protected Position position;
-    protected String type;
-    protected boolean exists;    
-    protected boolean solid;
-    protected boolean lethal;
+public abstract class Obstacle extends Entity {
+    public static final int ICE_BLOCK = 0;
+    public static final int CAMPFIRE = 1;
+    public static final int HOT_TILE = 2;
+    public static final int KIND_COUNT = 3;
+    
+    private static final String[] KIND_NAMES = {"ICE_BLOCK", "CAMPFIRE", "HOT_TILE"};
+    private static final Class<?>[] KIND_CLASSES = {IceBlock.class, Campfire.class, HotTile.class};
     
     /**
      * Creates a new obstacle with the specified properties.
@@ -20,27 +22,31 @@ public abstract class Obstacle {
      * @param lethal true if this obstacle eliminates the player on contact, false otherwise
      */
     public Obstacle(int x, int y, String type, boolean solid, boolean lethal) {
-        this.position = new Position(x, y);
-        this.type = type;
-        this.exists = true; 
-        this.solid = solid;
-        this.lethal = lethal;
+        super(x, y, type, kindOf(type),
+            EntityStore.ACTIVE | (solid ? EntityStore.SOLID : 0) | (lethal ? EntityStore.LETHAL : 0));
     }
     
     /**
-     * Gets the current position of this obstacle on the board.
-     * @return the position of the obstacle
+     * Gets the kind constant of an obstacle type name.
+     * @param type the type of obstacle: "ICE_BLOCK", "CAMPFIRE" or "HOT_TILE"
+     * @return ICE_BLOCK, CAMPFIRE or HOT_TILE, or -1 if the name is not an obstacle
      */
-    public Position getPosition() {
-        return position;
+    public static int kindOf(String type) {
+        for (int kind = 0; kind < KIND_COUNT; kind++) {
+            if (KIND_NAMES[kind].equals(type)) {
+                return kind;
+            }
+        }
+        return -1;
     }
     
     /**
-     * Gets the type identifier of this obstacle.
-     * @return the obstacle type: "ICE_BLOCK", "CAMPFIRE" or "HOT_TILE"
+     * Gets the kind the stores use to update this obstacle, only set when its class is exactly the class of its kind.
+     * @return the kind of the obstacle class, or -1
      */
-    public String getType() {
-        return type;
+    @Override
+    int behaviorKind() {
+        return kind >= 0 && getClass() == KIND_CLASSES[kind] ? kind : -1;
     }
     
     /**
@@ -48,21 +54,21 @@ public abstract class Obstacle {
      * @return true if the obstacle exists, false if it has been destroyed
      */
     public boolean exists() {
-        return exists;
+        return hasFlag(EntityStore.ACTIVE);
     }
     
     /**
      * Destroys the obstacle, removing it from the board.
      */
     public void destroy() {
-        exists = false;
+        setFlag(EntityStore.ACTIVE, false);
     }
     
     /**
      * Recreates the obstacle.
      */
     public void create() {
-        exists = true;
+        setFlag(EntityStore.ACTIVE, true);
     }
     
     /**
@@ -70,7 +76,7 @@ public abstract class Obstacle {
      * @return true if the obstacle is solid, false otherwise
      */
     public boolean isSolid() {
-        return solid;
+        return hasFlag(EntityStore.SOLID);
     }
     
     /**
@@ -78,7 +84,7 @@ public abstract class Obstacle {
      * @return true if the obstacle is lethal, false otherwise
      */
     public boolean isLethal() {
-        return lethal;
+        return hasFlag(EntityStore.LETHAL);
     }
     
     /**
@@ -15,13 +15,14 @@ public class OrangeSquid extends Enemy {
      * @param y the vertical position on the board
      */
     public OrangeSquid(int x, int y) {
-        super(x, y, "SQUID");
+        super(x, y, SQUID);
     }
     
     /**
      * Sets the target(player) that the squid will chase.
      * @param target the ice cream to pursue
      */
+    @Override
     public void setTarget(IceCream target) {
         this.target = target;
     }
@@ -43,11 +44,24 @@ public class OrangeSquid extends Enemy {
         if (target == null || !target.isAlive()) {
             return;
         }
-        
-        int playerX = target.getPosition().getX();
-        int playerY = target.getPosition().getY();
-        int currentX = position.getX();
-        int currentY = position.getY();
+        EntityStore held = borrowStore();
+        step(held, borrowedSlot(held), board, target.getPosition().getX(), target.getPosition().getY(), this.board);
+        giveBack(held);
+    }
+    
+    /**
+     * Moves the squid of a store slot one cell towards a target.
+     * It works on the store arrays, so a game can move all its squids in one loop.
+     * @param store the store holding the squid
+     * @param slot the slot of the squid
+     * @param board the game board used to check for obstacles
+     * @param playerX the horizontal position of the target
+     * @param playerY the vertical position of the target
+     * @param iceBoard the board whose ice blocks the squid breaks, or null if it breaks none
+     */
+    static void step(EntityStore store, int slot, Board board, int playerX, int playerY, Board iceBoard) {
+        int currentX = store.getX(slot);
+        int currentY = store.getY(slot);
         
         
         int deltaX = playerX - currentX;
@@ -75,14 +89,12 @@ public class OrangeSquid extends Enemy {
         
         // If there's an ice block, break it and move
         if (board.hasIceBlock(newX, newY)) {
-            destroyIceBlockAt(newX, newY);
+            destroyIceBlockAt(iceBoard, newX, newY);
         }
         
         // Try to move if position is valid and obstacle-free
-        if (board.isValidPosition(newX, newY) && 
-            !board.hasWall(newX, newY) && 
-            !board.hasIceBlock(newX, newY)) {
-            move(newX, newY);
+        if (board.canMoveTo(newX, newY)) {
+            store.setPosition(slot, newX, newY);
         } else {
             // If can't move in main direction, try alternative
             newX = currentX;
@@ -106,33 +118,25 @@ public class OrangeSquid extends Enemy {
             
             // If there's an ice block in alternative direction, break it
             if (board.hasIceBlock(newX, newY)) {
-                destroyIceBlockAt(newX, newY);
+                destroyIceBlockAt(iceBoard, newX, newY);
             }
             
             // Try the alternative movement
-            if (board.isValidPosition(newX, newY) && 
-                !board.hasWall(newX, newY) && 
-                !board.hasIceBlock(newX, newY)) {
-                move(newX, newY);
+            if (board.canMoveTo(newX, newY)) {
+                store.setPosition(slot, newX, newY);
             }
         }
     }
     
     /**
      * Destroy an ice block at the given position.
+     * @param board the board of the ice block, or null to do nothing
      * @param x the horizontal position of the ice block
      * @param y the vertical position of the ice block
      */
-    private void destroyIceBlockAt(int x, int y) {
+    private static void destroyIceBlockAt(Board board, int x, int y) {
         if (board != null) {
-            for (IceBlock block : board.getIceBlocks()) {
-                if (block.exists() && 
-                    block.getPosition().getX() == x && 
-                    block.getPosition().getY() == y) {
-                    block.destroy();
-                    break;
-                }
-            }
+            board.destroyIceBlockAt(x, y);
         }
     }
 }
\ No newline at end of file
@@ -1,26 +1,42 @@
 package Domain;
 
-import java.util.Random;
-
 /**
  * Represents a pineapple fruit in the game.
  * Pineapples move randomly around the board every game update and are worth 200 points.
  */
 public class Pineapple extends Fruit {
-    private Random random;
-    private int moveCounter; // Counter to control movement frequency
+    private GameRandom random;
     
     /**
      * Creates a new pineapple at the specified position.
      * The pineapple is worth 200 points and will move randomly every few updates.
+     * It gets its own generator, seeded from the system time.
      * 
      * @param x the horizontal position on the board
      * @param y the vertical position on the board
      */
     public Pineapple(int x, int y) {
-        super(x, y, "PINEAPPLE", 200);
-        this.random = new Random();
-        this.moveCounter = 0;
+        this(x, y, new GameRandom(System.nanoTime()));
+    }
+    
+    /**
+     * Creates a new pineapple at the specified position that moves with a given generator.
+     * @param x the horizontal position on the board
+     * @param y the vertical position on the board
+     * @param random the random generator, usually the one of the game
+     */
+    public Pineapple(int x, int y, GameRandom random) {
+        super(x, y, PINEAPPLE, 200);
+        this.random = random;
+    }
+    
+    /**
+     * Makes the pineapple move with another generator.
+     * @param random the random generator, usually the one of the game
+     */
+    @Override
+    void setRandom(GameRandom random) {
+        this.random = random;
     }
     
     /**
@@ -28,21 +44,47 @@ public class Pineapple extends Fruit {
      * @param board the game board used to check for valid positions to move
      */
     public void move(Board board) {
-        if (collected) {
+        EntityStore held = borrowStore();
+        move(held, borrowedSlot(held), board, random);
+        giveBack(held);
+    }
+    
+    /**
+     * Moves the pineapple, it moves on every game update.
+     * @param board the game board used to check for valid positions to move
+     */
+    @Override
+    public void update(Board board) {
+        EntityStore held = borrowStore();
+        move(held, borrowedSlot(held), board, random);
+        giveBack(held);
+    }
+    
+    /**
+     * Moves the pineapple of a store slot to a random adjacent position if possible.
+     * It works on the store arrays, so a game can move all its pineapples in one loop.
+     * @param store the store holding the pineapple
+     * @param slot the slot of the pineapple
+     * @param board the game board used to check for valid positions to move
+     * @param random the random generator of the pineapple
+     */
+    static void move(EntityStore store, int slot, Board board, GameRandom random) {
+        if (!store.hasFlag(slot, EntityStore.ACTIVE)) {
             return;
         }
         
-        moveCounter++;
+        int moveCounter = store.getTimer(slot) + 1; // Counter to control movement frequency
         
         // Move every update
         if (moveCounter < 1) {
+            store.setTimer(slot, moveCounter);
             return;
         }
         
-        moveCounter = 0;
+        store.setTimer(slot, 0);
         
-        int currentX = position.getX();
-        int currentY = position.getY();
+        int currentX = store.getX(slot);
+        int currentY = store.getY(slot);
         
         // Try to move in a random direction
         int direction = random.nextInt(4);
@@ -65,11 +107,8 @@ public class Pineapple extends Fruit {
         }
         
         // Check that the new position is valid
-        if (board.isValidPosition(newX, newY) && 
-            !board.hasWall(newX, newY) && 
-            !board.hasIceBlock(newX, newY)) {
-            position.setX(newX);
-            position.setY(newY);
+        if (board.canMoveTo(newX, newY)) {
+            store.setPosition(slot, newX, newY);
         }
     }
 }
\ No newline at end of file
@@ -3,8 +3,16 @@ package Domain;
 /**
  * Class that represents the position on the game board using x and y coordinates
  * of all the game elements such as players, enemies, fruits, and obstacles.
+ * A position can also be packed in a single int, x in the low 16 bits and y in the high ones
+ * (x | y << 16): the game keeps positions packed, so boards are at most MAX_COORDINATE cells
+ * wide and high, and every cell of a board and the cells next to it have their own packed value.
  */
 public class Position {
+    public static final int MAX_COORDINATE = 0xFFFF; // the largest coordinate that can be packed
+    
+    private static final int MASK = 0xFFFF;
+    private static final int Y_SHIFT = 16;
+    
     private int x;
     private int y;
     
@@ -50,12 +58,48 @@ public class Position {
         this.y = y;
     }
     
+    /**
+     * Gets this position packed in an int.
+     * @return the packed position, x | y << 16
+     */
+    public int pack() {
+        return pack(getX(), getY());
+    }
+    
     /**
      * Checks if this position has the same coordinates as another position.
      * @param other the position to compare with
      * @return true if both positions have the same x and y coordinates, false otherwise
      */
     public boolean equals(Position other) {
-        return this.x == other.x && this.y == other.y;
+        return getX() == other.getX() && getY() == other.getY();
+    }
+    
+    /**
+     * Packs a pair of coordinates in an int.
+     * @param x the horizontal coordinate, between 0 and 65535
+     * @param y the vertical coordinate, between 0 and 65535
+     * @return the packed position, x | y << 16
+     */
+    public static int pack(int x, int y) {
+        return (x & MASK) | y << Y_SHIFT;
+    }
+    
+    /**
+     * Gets the horizontal coordinate of a packed position.
+     * @param position the packed position
+     * @return the x coordinate
+     */
+    public static int unpackX(int position) {
+        return position & MASK;
+    }
+    
+    /**
+     * Gets the vertical coordinate of a packed position.
+     * @param position the packed position
+     * @return the y coordinate
+     */
+    public static int unpackY(int position) {
+        return position >>> Y_SHIFT;
     }
 }
\ No newline at end of file
@@ -13,13 +13,14 @@ public class Pot extends Enemy {
      * @param y the vertical position on the board
      */
     public Pot(int x, int y) {
-        super(x, y, "POT");
+        super(x, y, POT);
     }
     
     /**
      * Sets the target(player) that the pot will chase.
      * @param target the ice cream that will chase
      */
+    @Override
     public void setTarget(IceCream target) {
         this.target = target;
     }
@@ -33,11 +34,23 @@ public class Pot extends Enemy {
         if (target == null || !target.isAlive()) {
             return;
         }
-        
-        int playerX = target.getPosition().getX();
-        int playerY = target.getPosition().getY();
-        int currentX = position.getX();
-        int currentY = position.getY();
+        EntityStore held = borrowStore();
+        step(held, borrowedSlot(held), board, target.getPosition().getX(), target.getPosition().getY());
+        giveBack(held);
+    }
+    
+    /**
+     * Moves the pot of a store slot one cell towards a target.
+     * It works on the store arrays, so a game can move all its pots in one loop.
+     * @param store the store holding the pot
+     * @param slot the slot of the pot
+     * @param board the game board used to check for obstacles
+     * @param playerX the horizontal position of the target
+     * @param playerY the vertical position of the target
+     */
+    static void step(EntityStore store, int slot, Board board, int playerX, int playerY) {
+        int currentX = store.getX(slot);
+        int currentY = store.getY(slot);
         
         // Calculate distance in both axes
         int deltaX = playerX - currentX;
@@ -64,10 +77,8 @@ public class Pot extends Enemy {
         }
         
         // Check if the new position is valid
-        if (board.isValidPosition(newX, newY) && 
-            !board.hasWall(newX, newY) && 
-            !board.hasIceBlock(newX, newY)) {
-            move(newX, newY);
+        if (board.canMoveTo(newX, newY)) {
+            store.setPosition(slot, newX, newY);
         } else {
             // If can't move in the main direction, try the other axis
             newX = currentX;
@@ -89,10 +100,8 @@ public class Pot extends Enemy {
                 }
             }
             
-            if (board.isValidPosition(newX, newY) && 
-                !board.hasWall(newX, newY) && 
-                !board.hasIceBlock(newX, newY)) {
-                move(newX, newY);
+            if (board.canMoveTo(newX, newY)) {
+                store.setPosition(slot, newX, newY);
             }
         }
     }
@@ -0,0 +1,64 @@
+package Domain;
+
+/**
+ * Agent that plays a fixed script, one action per update.
+ * Actions are "UP", "DOWN", "LEFT", "RIGHT" to move, "ICE" to create or break ice
+ * and "WAIT" to do nothing. When the script ends the player stays still.
+ */
+public class ScriptedAgent implements GameAgent {
+    private static final int WAIT = -1;
+    private static final int ICE = -2;
+    
+    private final int[] actions; // Board directions, WAIT or ICE
+    
+    /**
+     * Creates an agent for a script.
+     * Unknown actions are played as "WAIT".
+     * @param actions the action of each update, in order
+     */
+    public ScriptedAgent(String... actions) {
+        this.actions = new int[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            this.actions[i] = actions[i].equals("ICE") ? ICE : Board.directionIndex(actions[i]);
+        }
+    }
+    
+    /**
+     * Creates an agent for a script written as a text of actions separated by spaces or commas.
+     * @param script the script, for example "UP UP ICE WAIT LEFT"
+     * @return the agent
+     */
+    public static ScriptedAgent parse(String script) {
+        String trimmed = script.trim();
+        if (trimmed.isEmpty()) {
+            return new ScriptedAgent();
+        }
+        return new ScriptedAgent(trimmed.toUpperCase().split("[\\s,]+"));
+    }
+    
+    /**
+     * Performs the action of the script for this update.
+     * @param game the game to play
+     * @param tick the number of updates done so far in the game
+     */
+    @Override
+    public void act(Game game, long tick) {
+        if (tick >= actions.length) {
+            return;
+        }
+        int action = actions[(int) tick];
+        if (action == ICE) {
+            game.handleIceBlock();
+        } else if (action != WAIT) {
+            game.movePlayer(action);
+        }
+    }
+    
+    /**
+     * Gets the length of the script.
+     * @return the number of actions
+     */
+    public int length() {
+        return actions.length;
+    }
+}
\ No newline at end of file
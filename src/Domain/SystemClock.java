@@ -0,0 +1,32 @@
+package Domain;
+
+/**
+ * Clock that follows the real time of the system, used by default by every game.
+ */
+public class SystemClock implements GameClock {
+    
+    /**
+     * Gets the current system time.
+     * @return the time in milliseconds
+     */
+    @Override
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+    
+    /**
+     * Does nothing, the real time doesn't depend on the updates.
+     */
+    @Override
+    public void tick() {
+    }
+    
+    /**
+     * The real time doesn't depend on the ticks.
+     * @return 0
+     */
+    @Override
+    public long getMillisPerTick() {
+        return 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package Domain;
+
+/**
+ * Deterministic clock that moves forward a fixed amount of time on every game update.
+ * With the update interval of the window, a game behaves exactly like the real-time one
+ * but a headless run can play a whole level as fast as it can call update.
+ */
+public class TickClock implements GameClock {
+    private final long millisPerTick;
+    private long ticks;
+    
+    /**
+     * Creates a clock that advances like the game window, one update interval per update.
+     */
+    public TickClock() {
+        this(Game.UPDATE_INTERVAL);
+    }
+    
+    /**
+     * Creates a clock that advances a given time per update.
+     * @param millisPerTick the milliseconds that pass on every update
+     */
+    public TickClock(long millisPerTick) {
+        if (millisPerTick <= 0) {
+            throw new IllegalArgumentException("Invalid tick length: " + millisPerTick);
+        }
+        this.millisPerTick = millisPerTick;
+        this.ticks = 0;
+    }
+    
+    /**
+     * Gets the time of the clock, the number of ticks times the tick length.
+     * @return the time in milliseconds
+     */
+    @Override
+    public long currentTimeMillis() {
+        return ticks * millisPerTick;
+    }
+    
+    /**
+     * Advances the clock by one tick.
+     */
+    @Override
+    public void tick() {
+        ticks++;
+    }
+    
+    /**
+     * Advances the clock by several ticks without updating the game, for example
+     * to simulate time passing while the game is paused.
+     * @param count the number of ticks
+     */
+    @Override
+    public void advance(long count) {
+        ticks += count;
+    }
+    
+    /**
+     * Gets the number of ticks counted by the clock.
+     * @return the tick count
+     */
+    public long getTicks() {
+        return ticks;
+    }
+    
+    /**
+     * Gets the milliseconds that pass on every tick.
+     * @return the tick length
+     */
+    @Override
+    public long getMillisPerTick() {
+        return millisPerTick;
+    }
+}
\ No newline at end of file
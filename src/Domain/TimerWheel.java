@@ -0,0 +1,215 @@
+package Domain;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Hashed timer wheel that counts game ticks.
+ * Entities register a deadline ("reignite in 20 ticks", "teleport in 40 ticks") with an int payload
+ * that tells the owner what to do, and every tick only the timers of the current slot are visited,
+ * so entities with nothing due cost nothing. Timers further away than one turn of the wheel
+ * stay in their slot until the turn of their deadline comes.
+ * Cancelled timers are only marked and are removed when their slot is visited.
+ * Timers are kept in primitive arrays that only grow, so scheduling one doesn't allocate.
+ */
+public class TimerWheel {
+    private static final int FREE = 0;
+    private static final int ACTIVE = 1;
+    private static final int CANCELLED = 2;
+    
+    private final int mask;
+    private final int[] slots; // first timer of every slot, -1 if empty
+    private long[] deadlines;
+    private int[] payloads;
+    private int[] nextTimers; // next timer of the same slot, or of the free list
+    private int[] generations; // tells apart the timers that reuse the same entry
+    private byte[] states;
+    private int freeTimer;
+    private int size;
+    private long now;
+    
+    /**
+     * Creates an empty wheel.
+     * @param slotCount the number of slots, rounded up to a power of two; deadlines closer than it are found right away
+     */
+    public TimerWheel(int slotCount) {
+        if (slotCount <= 0 || slotCount > 1 << 30) {
+            throw new IllegalArgumentException("Invalid slot count: " + slotCount);
+        }
+        int count = Integer.highestOneBit(slotCount);
+        if (count < slotCount) {
+            count <<= 1;
+        }
+        this.mask = count - 1;
+        this.slots = new int[count];
+        Arrays.fill(slots, -1);
+        this.deadlines = new long[16];
+        this.payloads = new int[16];
+        this.nextTimers = new int[16];
+        this.generations = new int[16];
+        this.states = new byte[16];
+        this.freeTimer = -1;
+        this.size = 0;
+        this.now = 0;
+    }
+    
+    /**
+     * Registers a timer.
+     * @param delay the number of ticks until it is due, at least 1
+     * @param payload the value passed to the handler when it is due
+     * @return a handle to cancel it
+     */
+    public long schedule(long delay, int payload) {
+        if (delay < 1) {
+            throw new IllegalArgumentException("Invalid delay: " + delay);
+        }
+        int timer = allocate();
+        deadlines[timer] = now + delay;
+        payloads[timer] = payload;
+        states[timer] = ACTIVE;
+        int slot = (int) (now + delay) & mask;
+        nextTimers[timer] = slots[slot];
+        slots[slot] = timer;
+        return ((long) generations[timer] << 32) | timer;
+    }
+    
+    /**
+     * Cancels a timer if it has not fired yet. Unknown or old handles are ignored.
+     * @param handle the handle returned by schedule
+     * @return true if the timer was pending and is now cancelled
+     */
+    public boolean cancel(long handle) {
+        int timer = (int) handle;
+        if (timer < 0 || timer >= states.length || generations[timer] != (int) (handle >>> 32)
+            || states[timer] != ACTIVE) {
+            return false;
+        }
+        states[timer] = CANCELLED;
+        return true;
+    }
+    
+    /**
+     * Advances one tick and passes the payload of every timer due on it to the handler.
+     * The handler can schedule new timers, even on the same tick of the next turn.
+     * @param handler the action for every timer due
+     * @return the number of timers fired
+     */
+    public int advance(IntConsumer handler) {
+        now++;
+        int slot = (int) now & mask;
+        int timer = slots[slot];
+        slots[slot] = -1;
+        int fired = 0;
+        while (timer >= 0) {
+            int next = nextTimers[timer];
+            if (states[timer] == CANCELLED) {
+                release(timer);
+            } else if (deadlines[timer] == now) {
+                int payload = payloads[timer];
+                release(timer);
+                fired++;
+                handler.accept(payload);
+            } else {
+                // Due on a later turn of the wheel
+                nextTimers[timer] = slots[slot];
+                slots[slot] = timer;
+            }
+            timer = next;
+        }
+        return fired;
+    }
+    
+    /**
+     * Gets the number of ticks until the next pending timer is due.
+     * It looks at every timer, so it is meant for occasional use like skipping idle ticks.
+     * @return the ticks until the next timer, or Long.MAX_VALUE if there is none
+     */
+    public long ticksUntilNextTimer() {
+        long next = Long.MAX_VALUE;
+        for (int slot = 0; slot <= mask; slot++) {
+            for (int timer = slots[slot]; timer >= 0; timer = nextTimers[timer]) {
+                if (states[timer] == ACTIVE) {
+                    next = Math.min(next, deadlines[timer] - now);
+                }
+            }
+        }
+        return next;
+    }
+    
+    /**
+     * Advances several ticks at once, when no timer is due on them.
+     * @param ticks the number of ticks to skip, less than ticksUntilNextTimer
+     */
+    public void skip(long ticks) {
+        if (ticks >= ticksUntilNextTimer()) {
+            throw new IllegalStateException("A timer is due in the skipped ticks");
+        }
+        now += ticks;
+    }
+    
+    /**
+     * Removes every timer, the current tick is kept. Handles of removed timers become invalid.
+     */
+    public void clear() {
+        for (int slot = 0; slot <= mask; slot++) {
+            int timer = slots[slot];
+            while (timer >= 0) {
+                int next = nextTimers[timer];
+                release(timer);
+                timer = next;
+            }
+            slots[slot] = -1;
+        }
+    }
+    
+    /**
+     * Gets the current tick of the wheel.
+     * @return the number of ticks advanced
+     */
+    public long getTick() {
+        return now;
+    }
+    
+    /**
+     * Gets the number of timers registered, cancelled ones included until their slot is visited.
+     * @return the number of timers
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Takes a free timer entry, growing the arrays if every entry is in use.
+     * @return the entry index
+     */
+    private int allocate() {
+        if (freeTimer < 0) {
+            if (size == states.length) {
+                int capacity = size * 2;
+                deadlines = Arrays.copyOf(deadlines, capacity);
+                payloads = Arrays.copyOf(payloads, capacity);
+                nextTimers = Arrays.copyOf(nextTimers, capacity);
+                generations = Arrays.copyOf(generations, capacity);
+                states = Arrays.copyOf(states, capacity);
+            }
+            size++;
+            return size - 1;
+        }
+        int timer = freeTimer;
+        freeTimer = nextTimers[timer];
+        size++;
+        return timer;
+    }
+    
+    /**
+     * Puts a timer entry in the free list and invalidates its handle.
+     * @param timer the entry index
+     */
+    private void release(int timer) {
+        states[timer] = FREE;
+        generations[timer]++;
+        nextTimers[timer] = freeTimer;
+        freeTimer = timer;
+        size--;
+    }
+}
\ No newline at end of file
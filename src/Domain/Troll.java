@@ -7,9 +7,7 @@ package Domain;
  * They don't chase the player or break ice blocks.
  */
 public class Troll extends Enemy {
-    private int direction;
-    private int stepCount;
-    private int maxSteps;
+    private static final int MAX_STEPS = 14; // Changes direction every 14 steps
     
     /**
      * Creates a new Troll at the specified position.
@@ -17,10 +15,19 @@ public class Troll extends Enemy {
      * @param y the vertical position on the board
      */
     public Troll(int x, int y) {
-        super(x, y, "TROLL");
-        this.direction = 0;
-        this.stepCount = 0;
-        this.maxSteps = 14; // Changes direction every 14 steps
+        super(x, y, TROLL);
+    }
+    
+    /**
+     * Puts the troll back to its starting position, walking right again.
+     * @param x the horizontal starting position
+     * @param y the vertical starting position
+     */
+    @Override
+    public void reset(int x, int y) {
+        super.reset(x, y);
+        setStateValue(0);
+        setTimer(0);
     }
     
     /**
@@ -29,18 +36,97 @@ public class Troll extends Enemy {
      */
     @Override
     public void updatePosition(Board board) {
-        stepCount++;
+        EntityStore held = borrowStore();
+        step(held, borrowedSlot(held), board);
+        giveBack(held);
+    }
+    
+    /**
+     * Moves the troll of a store slot one update, the direction is kept in the slot state
+     * and the steps in its timer.
+     * @param store the store holding the troll
+     * @param slot the slot of the troll
+     * @param board the game board used to check for walls and obstacles
+     */
+    static void step(EntityStore store, int slot, Board board) {
+        setState(store, slot, nextState(board, getState(store, slot)));
+    }
+    
+    /**
+     * Gets the whole state of the troll packed in a long: position, direction and steps.
+     * A troll only depends on this state and the board, so on a board that doesn't change
+     * its states repeat in a cycle.
+     * @return the packed state
+     */
+    long getState() {
+        return (long) getPackedPosition() << 6 | getStateValue() << 4 | getTimer();
+    }
+    
+    /**
+     * Gets the packed state of the troll of a store slot.
+     * @param store the store holding the troll
+     * @param slot the slot of the troll
+     * @return the packed state
+     */
+    static long getState(EntityStore store, int slot) {
+        return (long) store.getPosition(slot) << 6 | store.getState(slot) << 4 | store.getTimer(slot);
+    }
+    
+    /**
+     * Puts the troll in a packed state.
+     * @param state a state returned by getState or nextState
+     */
+    void setState(long state) {
+        setPackedPosition(positionOf(state));
+        setStateValue((int) (state >>> 4) & 3);
+        setTimer((int) state & 15);
+    }
+    
+    /**
+     * Puts the troll of a store slot in a packed state.
+     * @param store the store holding the troll
+     * @param slot the slot of the troll
+     * @param state a state returned by getState or nextState
+     */
+    static void setState(EntityStore store, int slot, long state) {
+        store.setPosition(slot, positionOf(state));
+        store.setState(slot, (int) (state >>> 4) & 3);
+        store.setTimer(slot, (int) state & 15);
+    }
+    
+    /**
+     * Gets the position of a packed state.
+     * @param state a state returned by getState or nextState
+     * @return the packed position of the troll, see Position.pack
+     */
+    static int positionOf(long state) {
+        return (int) (state >>> 6);
+    }
+    
+    /**
+     * Computes the state a troll moves to in one update, without changing the troll.
+     * @param board the game board used to check for walls and obstacles
+     * @param state the packed state before the update
+     * @return the packed state after the update
+     */
+    static long nextState(Board board, long state) {
+        int x = Position.unpackX(positionOf(state));
+        int y = Position.unpackY(positionOf(state));
+        int dir = (int) (state >>> 4) & 3;
+        int steps = (int) state & 15;
+        
+        steps++;
         
-        if (stepCount >= maxSteps) {
-            direction = (direction + 1) % 4;
-            stepCount = 0;
+        if (steps >= MAX_STEPS) {
+            dir = (dir + 1) % 4;
+            steps = 0;
         }
         
-        int newX = position.getX();
-        int newY = position.getY();
+        int newX = x;
+        int newY = y;
         
         // Calculate new position based on current direction
-        switch(direction) {
+        switch(dir) {
             case 0: 
             	newX++;
             	break; // Right
@@ -56,13 +142,14 @@ public class Troll extends Enemy {
         }
         
         // Check if the position is valid
-        if (board.isValidPosition(newX, newY) && !board.hasWall(newX, newY) 
-            && !board.hasIceBlock(newX, newY)) {
-            move(newX, newY);
+        if (board.canMoveTo(newX, newY)) {
+            x = newX;
+            y = newY;
         } else {
             // If can't move, change direction immediately
-            direction = (direction + 1) % 4;
-            stepCount = 0;
+            dir = (dir + 1) % 4;
+            steps = 0;
         }
+        return (long) Position.pack(x, y) << 6 | dir << 4 | steps;
     }
 }
\ No newline at end of file
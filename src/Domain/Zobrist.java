@@ -0,0 +1,32 @@
+package Domain;
+
+/**
+ * Zobrist keys used to hash the state of a game.
+ * Every feature of the state (a cell layer bit, the player, an enemy or a fruit on a cell)
+ * has a pseudo-random 64-bit key and the hash of a state is the XOR of the keys of its features,
+ * so a change only needs to XOR out the old key and XOR in the new one.
+ * Keys are computed by mixing the feature with the SplitMix64 finalizer instead of being
+ * stored in tables, so they take no memory and are the same on every run.
+ */
+public class Zobrist {
+    public static final int CELL = 0; // the index is the ChangeJournal layer
+    public static final int PLAYER = 1;
+    public static final int ENEMY = 2;
+    public static final int FRUIT = 3;
+    public static final int RANDOM = 4;
+
+    private Zobrist() {
+    }
+
+    /**
+     * Gets the key of a feature.
+     * @param kind CELL, PLAYER, ENEMY or FRUIT
+     * @param index the layer, the entity index or any other value that tells features of the same kind apart
+     * @param cell the cell index of the feature
+     * @return the 64-bit key
+     */
+    public static long key(int kind, int index, int cell) {
+        long z = ((long) kind << 56) ^ ((long) index << 32) ^ (cell & 0xFFFFFFFFL);
+        return GameRandom.mix(z + 0x9E3779B97F4A7C15L);
+    }
+}
\ No newline at end of file
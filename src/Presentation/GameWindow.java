@@ -4,6 +4,7 @@ import Domain.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Main game window that contains the gameplay interface.
@@ -11,8 +12,15 @@ import java.awt.event.*;
  * - The game level display
  * - HUD information (score, time, level)
  * - Game controls and keyboard input
- * - Game timers for updates and rendering
+ * - The game loop for updates and rendering
  * - Win/loss dialogs and level progression
+ *
+ * The game is updated by a GameRunner on its own thread, the window only sends the
+ * player's actions to the game's input queue and draws the frames the runner publishes,
+ * refreshing once for every new frame instead of on a timer of its own.
+ * The HUD follows the game's event stream: labels only change when an event or the
+ * displayed second changes, and the end of the game arrives as an event instead of being polled.
+ * When the runner is stopped (end of the game, restart) the window owns the game again.
  */
 public class GameWindow extends JFrame {
     
@@ -25,8 +33,12 @@ public class GameWindow extends JFrame {
     private JLabel lblLevel;
     private JButton btnPause;
     
-    private Timer gameTimer;
-    private Timer updateTimer;
+    private GameRunner runner;
+    private FrameBuffer frames;
+    private EventCursor events;
+    private long shownSecond = -1;
+    private int score;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
     
     /**
      * Creates a new game window for the specified game and level.
@@ -36,9 +48,12 @@ public class GameWindow extends JFrame {
     public GameWindow(Game game, int levelNumber) {
         this.game = game;
         this.levelNumber = levelNumber;
+        this.frames = new FrameBuffer();
+        this.events = game.getEvents().subscribe();
+        this.score = game.getPlayer().getScore();
         prepareElements();
         prepareActions();
-        startGameTimers();
+        startSimulation();
     }
     
     /**
@@ -60,16 +75,16 @@ public class GameWindow extends JFrame {
         // Create the appropriate level panel based on level number
         switch(levelNumber) {
             case 1:
-                levelPanel = new Level1Panel(game);
+                levelPanel = new Level1Panel(game, frames);
                 break;
             case 2:
-                levelPanel = new Level2Panel(game);
+                levelPanel = new Level2Panel(game, frames);
                 break;
             case 3:
-                levelPanel = new Level3Panel(game);
+                levelPanel = new Level3Panel(game, frames);
                 break;
             default:
-                levelPanel = new Level1Panel(game);
+                levelPanel = new Level1Panel(game, frames);
         }
         
         levelPanel.setFocusable(true);
@@ -97,7 +112,7 @@ public class GameWindow extends JFrame {
         lblLevel.setForeground(Color.WHITE);
         lblLevel.setFont(new Font("Arial", Font.BOLD, 20));
         
-        lblScore = new JLabel("Score: " + game.getTotalScore(), SwingConstants.CENTER);
+        lblScore = new JLabel("Score: " + score, SwingConstants.CENTER);
         lblScore.setForeground(Color.YELLOW);
         lblScore.setFont(new Font("Arial", Font.BOLD, 20));
         
@@ -148,7 +163,7 @@ public class GameWindow extends JFrame {
                     "",
                     JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    stopTimers();
+                    stopSimulation();
                     MainMenu menu = new MainMenu();
                     menu.setVisible(true);
                     dispose();
@@ -157,14 +172,7 @@ public class GameWindow extends JFrame {
         });
         
         btnPause.addActionListener(e -> {
-            game.togglePause();
-            if (game.isPaused()) {
-                btnPause.setText("Resume");
-                btnPause.setBackground(new Color(50, 200, 50));
-            } else {
-                btnPause.setText("Pause (P)");
-                btnPause.setBackground(new Color(255, 165, 0));
-            }
+            game.getInput().pause();
             levelPanel.repaint();
             levelPanel.requestFocusInWindow();
         });
@@ -176,28 +184,21 @@ public class GameWindow extends JFrame {
                 
                 // Movement controls  WASD
                 if (key == KeyEvent.VK_UP || key == KeyEvent.VK_W) {
-                    game.movePlayer("UP");
+                    game.getInput().move(Board.UP);
                 } else if (key == KeyEvent.VK_DOWN || key == KeyEvent.VK_S) {
-                    game.movePlayer("DOWN");
+                    game.getInput().move(Board.DOWN);
                 } else if (key == KeyEvent.VK_LEFT || key == KeyEvent.VK_A) {
-                    game.movePlayer("LEFT");
+                    game.getInput().move(Board.LEFT);
                 } else if (key == KeyEvent.VK_RIGHT || key == KeyEvent.VK_D) {
-                    game.movePlayer("RIGHT");
+                    game.getInput().move(Board.RIGHT);
                 } 
                 // Ice block creation/destruction
                 else if (key == KeyEvent.VK_SPACE) {
-                    game.handleIceBlock();
+                    game.getInput().ice();
                 } 
                 // Pause toggle
                 else if (key == KeyEvent.VK_P || key == KeyEvent.VK_ESCAPE) {
-                    game.togglePause();
-                    if (game.isPaused()) {
-                        btnPause.setText("Resume");
-                        btnPause.setBackground(new Color(50, 200, 50));
-                    } else {
-                        btnPause.setText("Pause (P)");
-                        btnPause.setBackground(new Color(255, 165, 0));
-                    }
+                    game.getInput().pause();
                 } 
                 // Restart level
                 else if (key == KeyEvent.VK_R) {
@@ -218,27 +219,73 @@ public class GameWindow extends JFrame {
     }
     
     /**
-     * Starts the game timers for rendering and logic updates.
+     * Starts the simulation thread, which asks the window to refresh after every frame.
      */
-    private void startGameTimers() {
-        gameTimer = new Timer(16, e -> {
-            levelPanel.repaint();
-            updateLabels();
-            checkGameStatus();
-        });
-        gameTimer.start();
-        
-        updateTimer = new Timer(500, e -> game.update());
-        updateTimer.start();
+    private void startSimulation() {
+        runner = new GameRunner(game, frames);
+        runner.setFrameListener(this::frameReady);
+        runner.start();
+    }
+    
+    /**
+     * Called by the simulation thread when a frame is published.
+     * Queues a single refresh on the event thread, frames published before it runs are skipped.
+     */
+    private void frameReady() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::refresh);
+        }
     }
     
     /**
-     * Updates the HUD labels with current game information.
+     * Repaints the level, updates the clock and applies the new game events to the HUD.
      */
-    private void updateLabels() {
-        lblScore.setText("Score: " + game.getPlayer().getScore());
+    private void refresh() {
+        refreshQueued.set(false);
+        if (runner == null) {
+            return;
+        }
+        levelPanel.repaint();
+        updateTime(frames.acquire().getTimeRemaining());
         
-        long timeRemaining = game.getTimeRemaining();
+        while (events.next()) {
+            switch(events.getType()) {
+                case EventStream.FRUIT_COLLECTED:
+                    score += events.getValue();
+                    lblScore.setText("Score: " + score);
+                    break;
+                case EventStream.GAME_RESET:
+                    score = 0;
+                    lblScore.setText("Score: " + score);
+                    break;
+                case EventStream.PAUSE_TOGGLED:
+                    showPaused(events.getValue() == 1);
+                    break;
+                case EventStream.GAME_WON:
+                    lblScore.setText("Score: " + events.getValue());
+                    stopSimulation();
+                    showVictoryDialog();
+                    return;
+                case EventStream.GAME_LOST:
+                    stopSimulation();
+                    showDefeatDialog();
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Updates the time label when the displayed second changes.
+     * @param timeRemaining the remaining milliseconds
+     */
+    private void updateTime(long timeRemaining) {
+        long second = timeRemaining / 1000;
+        if (second == shownSecond) {
+            return;
+        }
+        shownSecond = second;
         int minutes = (int) (timeRemaining / 60000);
         int seconds = (int) ((timeRemaining % 60000) / 1000);
         lblTime.setText(String.format("Time: %d:%02d", minutes, seconds));
@@ -251,15 +298,16 @@ public class GameWindow extends JFrame {
     }
     
     /**
-     * Checks if the game has ended and shows appropriate dialogs.
+     * Shows the pause state on the pause button.
+     * @param paused true if the game is paused
      */
-    private void checkGameStatus() {
-        if (game.isGameWon()) {
-            stopTimers();
-            showVictoryDialog();
-        } else if (game.isGameLost()) {
-            stopTimers();
-            showDefeatDialog();
+    private void showPaused(boolean paused) {
+        if (paused) {
+            btnPause.setText("Resume");
+            btnPause.setBackground(new Color(50, 200, 50));
+        } else {
+            btnPause.setText("Pause (P)");
+            btnPause.setBackground(new Color(255, 165, 0));
         }
     }
     
@@ -325,27 +373,34 @@ public class GameWindow extends JFrame {
     
     /**
      * Restarts the current level from the beginning.
+     * The simulation thread is stopped first, so the game is reset while nothing else uses it.
      */
     private void restartLevel() {
-        stopTimers();
-        game.restart();
-        btnPause.setText("Pause (P)");
-        btnPause.setBackground(new Color(255, 165, 0));
-        lblTime.setForeground(Color.WHITE);
-        startGameTimers();
+        stopSimulation();
+        game.reset();
+        showPaused(false);
+        shownSecond = -1;
+        startSimulation();
         levelPanel.repaint();
         levelPanel.requestFocusInWindow();
     }
     
     /**
-     * Stops both game timers.
+     * Stops the simulation thread.
      */
-    private void stopTimers() {
-        if (gameTimer != null && gameTimer.isRunning()) {
-            gameTimer.stop();
-        }
-        if (updateTimer != null && updateTimer.isRunning()) {
-            updateTimer.stop();
+    private void stopSimulation() {
+        if (runner != null) {
+            runner.stop();
+            runner = null;
         }
     }
+    
+    /**
+     * Stops the simulation thread before closing the window.
+     */
+    @Override
+    public void dispose() {
+        stopSimulation();
+        super.dispose();
+    }
 }
\ No newline at end of file
@@ -14,9 +14,10 @@ public class Level2Panel extends LevelPanel {
     /**
      * Creates a new Level 2 display panel.
      * @param game the Game instance to display
+     * @param frames the buffer the simulation publishes the game's frames to
      */
-    public Level2Panel(Game game) {
-        super(game);
+    public Level2Panel(Game game, FrameBuffer frames) {
+        super(game, frames);
     }
     
     /**
@@ -25,9 +26,9 @@ public class Level2Panel extends LevelPanel {
      */
     @Override
     protected void drawEnemies(Graphics g) {
-        for (Enemy enemy : game.getEnemies()) {
-            int x = enemy.getPosition().getX() * CELL_SIZE;
-            int y = enemy.getPosition().getY() * CELL_SIZE;
+        for (int i = 0; i < frame.getEnemyCount(); i++) {
+            int x = frame.getEnemyX(i) * CELL_SIZE;
+            int y = frame.getEnemyY(i) * CELL_SIZE;
             
             g.drawImage(images.get("pot"), x, y, CELL_SIZE, CELL_SIZE, this);
         }
@@ -10,18 +10,25 @@ import java.util.HashMap;
  * Abstract base class for all level display panels.
  * This class handles the visual representation of the game board.
  * Each specific level extends this and implements how to draw their specific enemy types.
+ * Panels draw the newest frame snapshot published by the simulation, never the live game,
+ * so painting doesn't need to lock the game and never sees it half updated.
  */
 public abstract class LevelPanel extends JPanel {
     protected Game game;
+    protected FrameBuffer frames;
+    protected FrameSnapshot frame; // the frame being painted
     protected final int CELL_SIZE = 30;
     protected HashMap<String, Image> images;
+    protected Image[] fruitImages; // indexed by fruit kind
     
     /**
      * Creates a new level panel for the given game.
      * @param game the Game instance to display
+     * @param frames the buffer the simulation publishes the game's frames to
      */
-    public LevelPanel(Game game) {
+    public LevelPanel(Game game, FrameBuffer frames) {
         this.game = game;
+        this.frames = frames;
         this.images = new HashMap<>();
         setPreferredSize(new Dimension(
             game.getBoard().getWidth() * CELL_SIZE, 
@@ -62,6 +69,11 @@ public abstract class LevelPanel extends JPanel {
         loadImage("troll", "/images/enemies/troll.gif");
         loadImage("pot", "/images/enemies/pot.png");
         loadImage("squid", "/images/enemies/orangeSquid.png");
+        
+        fruitImages = new Image[Fruit.KIND_COUNT];
+        for (int kind = 0; kind < Fruit.KIND_COUNT; kind++) {
+            fruitImages[kind] = images.get(Fruit.kindName(kind).toLowerCase());
+        }
     }
     
     /**
@@ -89,6 +101,7 @@ public abstract class LevelPanel extends JPanel {
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        frame = frames.acquire();
         
         // Draw in layer order
         drawBackground(g);
@@ -99,7 +112,7 @@ public abstract class LevelPanel extends JPanel {
         drawPlayer(g);
         drawEnemies(g);
         
-        if (game.isPaused()) {
+        if (frame.isPaused()) {
             drawPausedMessage(g);
         }
     }
@@ -120,29 +133,25 @@ public abstract class LevelPanel extends JPanel {
      * @param g the graphics context
      */
     protected void drawObstacles(Graphics g) {
-        Board board = game.getBoard();
-        
-        // Draw hot tiles
-        for (HotTile tile : board.getHotTiles()) {
-            if (tile.exists()) {
-                int x = tile.getPosition().getX() * CELL_SIZE;
-                int y = tile.getPosition().getY() * CELL_SIZE;
-                Image img = images.get("hotTile");
-                if (img != null) {
-                    g.drawImage(img, x, y, CELL_SIZE, CELL_SIZE, this);
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                int cell = frame.getCell(x, y);
+                
+                // Draw hot tiles
+                if ((cell & FrameSnapshot.HOT_TILE) != 0) {
+                    Image img = images.get("hotTile");
+                    if (img != null) {
+                        g.drawImage(img, x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE, this);
+                    }
                 }
-            }
-        }
-        
-        // Draw campfires
-        for (Campfire fire : board.getCampfires()) {
-            if (fire.exists()) {
-                int x = fire.getPosition().getX() * CELL_SIZE;
-                int y = fire.getPosition().getY() * CELL_SIZE;
-                String imageKey = fire.isOn() ? "campfireOn" : "campfireOff";
-                Image img = images.get(imageKey);
-                if (img != null) {
-                    g.drawImage(img, x, y, CELL_SIZE, CELL_SIZE, this);
+                
+                // Draw campfires
+                if ((cell & FrameSnapshot.CAMPFIRE) != 0) {
+                    String imageKey = (cell & FrameSnapshot.CAMPFIRE_LIT) != 0 ? "campfireOn" : "campfireOff";
+                    Image img = images.get(imageKey);
+                    if (img != null) {
+                        g.drawImage(img, x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE, this);
+                    }
                 }
             }
         }
@@ -153,15 +162,12 @@ public abstract class LevelPanel extends JPanel {
      * @param g the graphics context
      */
     protected void drawBoard(Graphics g) {
-        Board board = game.getBoard();
-        
-        for (int y = 0; y < board.getHeight(); y++) {
-            for (int x = 0; x < board.getWidth(); x++) {
-                int cellType = board.getCellType(x, y);
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
                 int screenX = x * CELL_SIZE;
                 int screenY = y * CELL_SIZE;
                 
-                if (cellType == 1) {
+                if ((frame.getCell(x, y) & FrameSnapshot.WALL) != 0) {
                     drawWall(g, screenX, screenY);
                 } else {
                     drawFloor(g, screenX, screenY);
@@ -204,11 +210,11 @@ public abstract class LevelPanel extends JPanel {
         Image ice = images.get("iceBlock");
         if (ice == null) return;
         
-        for (IceBlock block : game.getBoard().getIceBlocks()) {
-            if (block.exists()) {
-                int x = block.getPosition().getX() * CELL_SIZE;
-                int y = block.getPosition().getY() * CELL_SIZE;
-                g.drawImage(ice, x, y, CELL_SIZE, CELL_SIZE, this);
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                if ((frame.getCell(x, y) & FrameSnapshot.ICE) != 0) {
+                    g.drawImage(ice, x * CELL_SIZE, y * CELL_SIZE, CELL_SIZE, CELL_SIZE, this);
+                }
             }
         }
     }
@@ -218,16 +224,12 @@ public abstract class LevelPanel extends JPanel {
      * @param g the graphics context
      */
     protected void drawFruits(Graphics g) {
-        for (Fruit fruit : game.getFruits()) {
-            if (fruit.isCollected()) {
-                continue;
-            }
-            
-            int x = fruit.getPosition().getX() * CELL_SIZE;
-            int y = fruit.getPosition().getY() * CELL_SIZE;
-            String type = fruit.getType().toLowerCase();
+        for (int i = 0; i < frame.getFruitCount(); i++) {
+            int x = frame.getFruitX(i) * CELL_SIZE;
+            int y = frame.getFruitY(i) * CELL_SIZE;
+            int kind = frame.getFruitKind(i);
             
-            Image fruitImg = images.get(type);
+            Image fruitImg = kind >= 0 ? fruitImages[kind] : null;
             if (fruitImg != null) {
                 g.drawImage(fruitImg, x + 5, y + 5, CELL_SIZE - 10, CELL_SIZE - 10, this);
             }
@@ -239,15 +241,14 @@ public abstract class LevelPanel extends JPanel {
      * @param g the graphics context
      */
     protected void drawPlayer(Graphics g) {
-        IceCream player = game.getPlayer();
-        if (!player.isAlive()) {
+        if (!frame.isPlayerAlive()) {
             return;
         }
         
-        int x = player.getPosition().getX() * CELL_SIZE;
-        int y = player.getPosition().getY() * CELL_SIZE;
+        int x = frame.getPlayerX() * CELL_SIZE;
+        int y = frame.getPlayerY() * CELL_SIZE;
         
-        String flavorKey = player.getFlavor().toLowerCase();
+        String flavorKey = frame.getPlayerFlavor().toLowerCase();
         Image playerImg = images.get(flavorKey);
         
         if (playerImg != null) {
@@ -256,7 +257,7 @@ public abstract class LevelPanel extends JPanel {
     }
     
     /**
-     * Abstract method to draw enemies.
+     * Abstract method to draw enemies from the frame being painted.
      * @param g the graphics context
      */
     protected abstract void drawEnemies(Graphics g);
@@ -1,16 +1,24 @@
 package Test;
 
 import Domain.*;
+import com.sun.management.ThreadMXBean;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -837,4 +845,1137 @@ public class GameTest {
         for (Fruit f : game.getFruits()) sumAfter += f.getPoints();
         assertEquals(sumAfter, game.getTotalScore(), "totalScore debe recalcularse tras restart");
     }
+
+    @Test
+    void shouldKeepCellIndexInSyncWhenIceBlocksAreDestroyedAndCleaned() {
+        Board board = game.getBoard();
+
+        assertTrue(board.hasIceBlock(3, 4), "Precondición: el nivel 1 tiene hielo en (3,4)");
+        assertSame(board.getIceBlockAt(3, 4), board.getIceBlockAt(3, 4));
+
+        assertTrue(board.destroyIceBlockAt(3, 4), "Debe destruir el bloque registrado en la celda");
+        assertFalse(board.hasIceBlock(3, 4), "La celda no debe reportar hielo tras destruirlo");
+        assertFalse(board.destroyIceBlockAt(3, 4), "No debe destruir dos veces la misma celda");
+
+        board.cleanDestroyedBlocks();
+        assertNull(board.getIceBlockAt(3, 4), "La limpieza debe retirar el bloque del índice");
+
+        board.clearAllIceBlocks();
+        assertFalse(board.hasIceBlock(4, 4), "clearAllIceBlocks debe vaciar el índice de celdas");
+    }
+
+    @Test
+    void shouldStopIceLinesAtWallsAndExistingIceInEveryDirection() {
+        Board board = new Board(16, 16, 1);
+
+        board.createIceBlocks(9, 2, "DOWN");
+        assertTrue(board.hasIceBlock(9, 5), "La línea hacia abajo debe llegar hasta el muro");
+        assertFalse(board.hasIceBlock(9, 6), "La línea no debe atravesar el muro");
+
+        board.createIceBlocks(1, 2, "RIGHT");
+        assertTrue(board.hasIceBlock(8, 2), "La línea debe llegar hasta el hielo existente");
+        assertFalse(board.hasIceBlock(10, 2), "La línea debe detenerse en el hielo existente");
+        assertFalse(board.canMoveTo(8, 2), "Una celda con hielo no debe ser transitable");
+
+        board.createIceBlocks(1, 14, "UP");
+        assertTrue(board.hasIceBlock(1, 3), "La línea hacia arriba debe continuar");
+        assertFalse(board.hasIceBlock(1, 1), "La línea hacia arriba debe detenerse en el hielo de la fila 2");
+
+        board.destroyIceBlocks(1, 15, "UP");
+        assertFalse(board.hasIceBlock(1, 14), "El efecto dominó debe destruir la columna");
+        assertFalse(board.hasIceBlock(1, 2), "El efecto dominó debe continuar por el hielo contiguo");
+        assertTrue(board.hasIceBlock(2, 2), "Solo se destruye la dirección indicada");
+
+        board.destroyIceBlocks(10, 2, "LEFT");
+        assertFalse(board.hasIceBlock(2, 2), "El efecto dominó hacia la izquierda debe destruir la fila");
+        assertTrue(board.hasIceBlock(9, 3), "La columna creada hacia abajo no debe verse afectada");
+        assertTrue(board.canMoveTo(5, 2), "Las celdas liberadas deben volver a ser transitables");
+    }
+
+    @Test
+    void shouldHonorCustomBoardSizeAndAllocateOnlyTouchedChunks() {
+        Game big = new Game(1, "VANILLA", 1024, 1024);
+        Board board = big.getBoard();
+
+        assertEquals(1024, board.getWidth(), "El ancho del tablero debe respetar el parámetro");
+        assertEquals(1024, board.getHeight(), "El alto del tablero debe respetar el parámetro");
+        assertTrue(board.hasWall(0, 0), "El nivel debe cargarse en la esquina superior izquierda");
+        assertTrue(board.canMoveTo(900, 900), "Las celdas fuera del nivel deben estar vacías");
+        assertEquals(game.getTotalFruits(), big.getTotalFruits(), "El nivel debe tener las mismas frutas");
+
+        board.createIceBlocks(20, 700, "RIGHT");
+        assertTrue(board.hasIceBlock(1023, 700), "La línea debe llegar hasta el borde del tablero");
+        board.createIceBlocks(500, 0, "DOWN");
+        assertTrue(board.hasIceBlock(500, 699), "La línea vertical debe detenerse en el hielo existente");
+        assertFalse(board.hasIceBlock(500, 701), "La línea vertical no debe atravesar el hielo");
+
+        BitLayer layer = new BitLayer(1024 * 1024);
+        layer.set(5);
+        layer.set(1_000_000);
+        assertEquals(2, layer.getAllocatedChunks(), "Solo deben reservarse los bloques con contenido");
+        assertEquals(1_000_000, layer.nextSetBit(6, 1024 * 1024), "La búsqueda debe saltar bloques vacíos");
+        assertEquals(5, layer.previousSetBit(999_999, -1), "La búsqueda inversa debe saltar bloques vacíos");
+    }
+
+    @Test
+    void shouldCompileLevelFileOnceAndPlayItFromTheMappedBinary() throws Exception {
+        Path directory = Files.createTempDirectory("levels");
+        Path text = directory.resolve("custom.txt");
+        Files.writeString(text, String.join("\n",
+                "# Nivel de prueba",
+                "level 2",
+                "1,1,1,1,1,1",
+                "1,3,0,5,9,1",
+                "1,2,4,0,10,1",
+                "1,1,1,1,1,1"));
+
+        LevelMap map = LevelLoader.load(text);
+        Path binary = LevelLoader.binaryFileFor(text);
+        assertTrue(Files.exists(binary), "Debe generarse el archivo compilado");
+        assertEquals(6, map.getWidth());
+        assertEquals(4, map.getHeight());
+        assertEquals(2, map.getLevel());
+
+        long compiledAt = Files.getLastModifiedTime(binary).toMillis();
+        LevelMap reopened = LevelLoader.load(text);
+        assertEquals(compiledAt, Files.getLastModifiedTime(binary).toMillis(),
+                "Un nivel ya compilado no debe volver a compilarse");
+        assertEquals(10, reopened.getCell(4, 2));
+
+        Game custom = new Game(reopened, "VANILLA");
+        assertEquals(1, custom.getPlayer().getPosition().getX());
+        assertEquals(1, custom.getPlayer().getPosition().getY());
+        assertEquals(1, custom.getTotalFruits(), "El nivel compilado debe tener una fruta");
+        assertTrue(custom.getEnemies().get(0) instanceof Pot, "El nivel 2 usa macetas como enemigos");
+        assertTrue(custom.getBoard().hasIceBlock(1, 2));
+        assertTrue(custom.getBoard().hasHotTile(4, 1));
+        assertTrue(custom.getBoard().hasCampfireOn(4, 2));
+
+        Path broken = directory.resolve("broken.txt");
+        Files.writeString(broken, "1,1,1\n1,0\n");
+        assertThrows(BadDopoCreamException.class, () -> LevelLoader.load(broken),
+                "Un nivel con filas de distinto tamaño debe rechazarse");
+    }
+
+    @Test
+    void shouldShareOneTemplatePerLevelWithoutChangingIt() {
+        LevelTemplate template = LevelTemplate.forLevel(2);
+        assertSame(template, LevelTemplate.forLevel(2), "Cada nivel debe tener una sola plantilla compartida");
+        assertEquals(3, template.getSpawnX());
+        assertEquals(12, template.getSpawnY());
+
+        Game first = new Game(template, "VANILLA");
+        Game second = new Game(2, "CHOCOLATE");
+        assertEquals(template.getFruitCount(), first.getTotalFruits());
+        assertEquals(template.getEnemyCount(), second.getEnemies().size());
+
+        // A board that changes its walls must not change the template or other boards
+        first.getBoard().addWall(1, 1);
+        first.getBoard().addHotTile(2, 1);
+        assertTrue(first.getBoard().hasWall(1, 1));
+        assertFalse(template.hasWall(1, 1), "La plantilla no debe modificarse");
+        assertFalse(second.getBoard().hasWall(1, 1), "Otros tableros no deben verse afectados");
+        assertFalse(second.getBoard().hasHotTile(2, 1));
+        assertTrue(second.getBoard().hasHotTile(4, 4));
+    }
+
+    @Test
+    void shouldResetLevelInPlaceReusingEveryObject() {
+        Game game = new Game(3, "VANILLA");
+        Board board = game.getBoard();
+        IceCream player = game.getPlayer();
+        Enemy squid = game.getEnemies().get(0);
+        Fruit fruit = game.getFruits().get(0);
+        int iceBlocks = board.getIceBlocks().size();
+
+        // Change the level: move, create and break ice, put out a fire and collect a fruit
+        game.movePlayer("LEFT");
+        game.movePlayer("DOWN");
+        board.destroyIceBlocks(1, 2, "RIGHT");
+        board.createIceBlocks(4, 5, "UP");
+        board.addWall(1, 2);
+        squid.move(1, 1);
+        fruit.collect();
+        game.update();
+
+        game.reset();
+        assertSame(board, game.getBoard(), "El reinicio rápido debe reutilizar el tablero");
+        assertSame(player, game.getPlayer(), "El reinicio rápido debe reutilizar el jugador");
+        assertSame(squid, game.getEnemies().get(0));
+        assertSame(fruit, game.getFruits().get(0));
+        assertEquals(8, player.getPosition().getX());
+        assertEquals(10, player.getPosition().getY());
+        assertEquals(7, squid.getPosition().getX());
+        assertEquals(5, squid.getPosition().getY());
+        assertFalse(fruit.isCollected());
+        assertEquals(game.getFruits().size(), game.getTotalFruits());
+        assertEquals(iceBlocks, board.getIceBlocks().size());
+        assertTrue(board.hasIceBlock(2, 2));
+        assertFalse(board.hasIceBlock(4, 3));
+        assertFalse(board.hasWall(1, 2));
+        assertTrue(board.hasCampfireOn(4, 4), "Las fogatas deben volver a estar encendidas");
+        assertFalse(LevelTemplate.forLevel(3).hasWall(1, 2), "La plantilla no debe modificarse");
+        assertFalse(game.isGameWon());
+        assertFalse(game.isGameLost());
+
+        // The reset board behaves like a new one
+        Game fresh = new Game(3, "VANILLA");
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 16; x++) {
+                assertEquals(fresh.getBoard().canMoveTo(x, y), board.canMoveTo(x, y));
+                assertEquals(fresh.getBoard().hasCampfireOn(x, y), board.hasCampfireOn(x, y));
+                assertEquals(fresh.getBoard().hasIceBlock(x, y), board.hasIceBlock(x, y));
+            }
+        }
+    }
+
+    @Test
+    void shouldStopIceLinesAtWallsAddedAfterTheLevelLoads() {
+        Game game = new Game(1, "VANILLA");
+        Board board = game.getBoard();
+        board.createIceBlocks(1, 2, Board.RIGHT);
+        assertTrue(board.hasIceBlock(14, 2), "La línea debe llegar hasta el muro del borde");
+        assertFalse(board.hasIceBlock(15, 2));
+
+        // A new wall changes where the next lines stop, on this board only
+        board.addWall(5, 1);
+        board.createIceBlocks(1, 1, "RIGHT");
+        assertTrue(board.hasIceBlock(4, 1));
+        assertFalse(board.hasIceBlock(5, 1), "La línea debe detenerse en el muro nuevo");
+        assertFalse(board.hasIceBlock(6, 1));
+
+        Board other = new Game(1, "VANILLA").getBoard();
+        other.createIceBlocks(1, 1, Board.RIGHT);
+        assertTrue(other.hasIceBlock(6, 1), "Otros tableros del mismo nivel no deben ver el muro");
+
+        board.destroyIceBlocks(0, 2, Board.RIGHT);
+        assertFalse(board.hasIceBlock(14, 2));
+        board.createIceBlocks(1, 3, "DIAGONAL");
+        assertFalse(board.hasIceBlock(1, 3), "Una dirección inválida no debe crear hielo");
+    }
+
+    @Test
+    void shouldRecycleDestroyedIceBlocksFromThePool() {
+        Board board = new Board(10, 10);
+        board.createIceBlocks(0, 0, Board.RIGHT);
+        assertEquals(10, board.getIceBlocks().size());
+        IceBlock first = board.getIceBlockAt(2, 0);
+
+        board.destroyIceBlocks(0, 0, Board.RIGHT);
+        board.getIceBlockAt(0, 0).destroy();
+        assertEquals(10, board.getIceBlocks().size(), "Los bloques destruidos siguen listados hasta la limpieza");
+        board.cleanDestroyedBlocks();
+        assertEquals(0, board.getIceBlocks().size());
+        assertFalse(board.hasIceBlock(0, 0), "Destruir un bloque directamente también debe liberar su celda");
+
+        // The new line reuses the recycled blocks instead of creating new ones
+        board.createIceBlocks(0, 5, Board.RIGHT);
+        boolean reused = false;
+        for (IceBlock block : board.getIceBlocks()) {
+            assertTrue(block.exists());
+            assertEquals(5, block.getPosition().getY());
+            reused |= block == first;
+        }
+        assertTrue(reused, "Los bloques reciclados deben reutilizarse");
+        assertTrue(board.getIceBlocks().contains(board.getIceBlockAt(3, 5)));
+
+        // Cleanup only removes the destroyed blocks and keeps the rest listed
+        board.destroyIceBlockAt(4, 5);
+        board.cleanDestroyedBlocks();
+        assertEquals(9, board.getIceBlocks().size());
+        assertTrue(board.hasIceBlock(9, 5));
+        assertNull(board.getIceBlockAt(4, 5));
+        assertThrows(UnsupportedOperationException.class, () -> board.getIceBlocks().add(new IceBlock(0, 0)),
+                "La lista de bloques es de solo lectura");
+    }
+
+    @Test
+    void shouldJournalBoardChangesAndDrainDirtyCells() {
+        Board board = new Board(8, 8);
+        board.addHotTile(3, 0);
+        board.addCampfire(5, 0);
+        ChangeJournal journal = board.getJournal();
+        assertEquals(2, journal.size());
+        assertEquals(ChangeJournal.HOT_TILE, journal.getLayer(0));
+        assertEquals(ChangeJournal.CAMPFIRE, journal.getLayer(1));
+
+        // The hot tile melts its block at once and the campfire goes out
+        board.createIceBlocks(0, 0, Board.RIGHT);
+        assertEquals(2 + 8, journal.size(), "Siete celdas con hielo y una fogata apagada");
+        int iceChanges = 0;
+        for (int i = 2; i < journal.size(); i++) {
+            if (journal.getLayer(i) == ChangeJournal.ICE) {
+                assertEquals(0, journal.getOldValue(i));
+                assertEquals(1, journal.getNewValue(i));
+                assertNotEquals(3, journal.getCell(i), "El hielo sobre la baldosa caliente nunca aparece");
+                iceChanges++;
+            } else {
+                assertEquals(ChangeJournal.CAMPFIRE, journal.getLayer(i));
+                assertEquals(5, journal.getCell(i));
+                assertEquals(0, journal.getNewValue(i));
+            }
+        }
+        assertEquals(7, iceChanges);
+
+        board.destroyIceBlockAt(0, 0);
+        board.destroyIceBlockAt(0, 0);
+        assertEquals(11, journal.size(), "Destruir una celda sin hielo no es un cambio");
+        assertEquals(1, journal.getOldValue(10));
+
+        int[] dirty = new int[3];
+        assertEquals(8, journal.getDirtyCellCount(), "Cada celda cambiada aparece una sola vez");
+        assertEquals(3, journal.drainDirtyCells(dirty));
+        assertEquals(5, journal.getDirtyCellCount());
+        assertEquals(3, journal.drainDirtyCells(dirty));
+        assertEquals(2, journal.drainDirtyCells(dirty));
+        assertEquals(0, journal.getDirtyCellCount());
+
+        Game game = new Game(2, "VANILLA");
+        assertEquals(0, game.getBoard().getJournal().size(), "Cargar el nivel no es un cambio");
+        game.handleIceBlock();
+        assertTrue(game.getBoard().getJournal().size() > 0);
+        int epoch = game.getBoard().getJournal().getEpoch();
+        game.reset();
+        assertEquals(0, game.getBoard().getJournal().size());
+        assertEquals(epoch + 1, game.getBoard().getJournal().getEpoch(), "Reiniciar debe empezar una nueva época");
+    }
+
+    @Test
+    void shouldKeepIncrementalStateHashEqualToFullHash() {
+        Game first = new Game(1, "VANILLA", 7L);
+        Game second = new Game(1, "VANILLA", 7L);
+        long initial = first.stateHash();
+        assertEquals(first.computeStateHash(), initial);
+        assertEquals(initial, second.stateHash(), "Dos partidas iguales deben tener el mismo hash");
+
+        String[] moves = {"UP", "ICE", "LEFT", "LEFT", "ICE", "UP", "ICE", "RIGHT", "DOWN", "ICE"};
+        for (String move : moves) {
+            for (Game game : new Game[] {first, second}) {
+                if (move.equals("ICE")) {
+                    game.handleIceBlock();
+                } else {
+                    game.movePlayer(move);
+                }
+                game.update();
+                assertEquals(game.computeStateHash(), game.stateHash(), "El hash incremental debe coincidir tras " + move);
+            }
+            assertEquals(first.stateHash(), second.stateHash());
+        }
+        assertNotEquals(initial, first.stateHash(), "Cambiar el estado debe cambiar el hash");
+
+        first.reset();
+        assertEquals(initial, first.stateHash(), "Reiniciar debe devolver el hash inicial");
+        assertEquals(first.computeStateHash(), first.stateHash());
+
+        // Changes made directly on the entities need a refresh
+        first.getPlayer().move(2, 2);
+        first.refreshStateHash();
+        assertEquals(first.computeStateHash(), first.stateHash());
+        assertNotEquals(initial, first.stateHash());
+    }
+
+    @Test
+    void shouldRunTheTimeLimitOnATickClock() {
+        int[][] layout = {
+            {1, 1, 1, 1, 1},
+            {1, 3, 0, 5, 1},
+            {1, 1, 1, 1, 1}
+        };
+        Game game = new Game(LevelMap.fromMatrix(1, layout), "VANILLA");
+        TickClock clock = new TickClock();
+        game.setClock(clock);
+        assertEquals(180000, game.getTimeRemaining());
+
+        game.update();
+        assertEquals(180000 - Game.UPDATE_INTERVAL, game.getTimeRemaining());
+
+        // Updates while paused don't use the time of the level
+        game.togglePause();
+        for (int i = 0; i < 20; i++) {
+            game.update();
+        }
+        assertEquals(180000 - Game.UPDATE_INTERVAL, game.getTimeRemaining());
+        game.togglePause();
+        assertEquals(180000 - Game.UPDATE_INTERVAL, game.getTimeRemaining());
+
+        // Three minutes are 360 updates of the window
+        int updates = 1;
+        while (!game.isGameLost() && updates < 1000) {
+            game.update();
+            updates++;
+        }
+        assertEquals(180000 / Game.UPDATE_INTERVAL, updates, "El límite de tiempo debe llegar en la actualización 360");
+        assertEquals(0, game.getTimeRemaining());
+        assertEquals(updates + 20, game.getTickCount());
+        assertEquals(updates + 20, clock.getTicks());
+    }
+
+    @Test
+    void shouldReplayRandomFruitsFromTheSeed() {
+        Game first = new Game(2, "VANILLA", 42L);
+        Game second = new Game(2, "VANILLA", 42L);
+        Game other = new Game(2, "VANILLA", 43L);
+        assertEquals(42L, first.getSeed());
+        assertEquals(first.stateHash(), second.stateHash());
+        assertNotEquals(first.stateHash(), other.stateHash(), "El estado del generador es parte del estado");
+
+        int[] positions = new int[30];
+        for (int i = 0; i < positions.length; i++) {
+            first.update();
+            second.update();
+            Fruit pineapple = first.getFruits().get(0);
+            positions[i] = pineapple.getPosition().getY() * 16 + pineapple.getPosition().getX();
+            assertEquals(first.stateHash(), second.stateHash(), "La misma semilla debe dar la misma partida");
+        }
+
+        // Restarting the level replays the same moves
+        first.reset();
+        for (int i = 0; i < positions.length; i++) {
+            first.update();
+            Fruit pineapple = first.getFruits().get(0);
+            assertEquals(positions[i], pineapple.getPosition().getY() * 16 + pineapple.getPosition().getX());
+        }
+        assertEquals(second.stateHash(), first.stateHash());
+
+        // Split generators are independent and reproducible
+        GameRandom a = new GameRandom(5L);
+        GameRandom b = new GameRandom(5L);
+        GameRandom childA = a.split();
+        GameRandom childB = b.split();
+        assertEquals(childA.nextLong(), childB.nextLong());
+        assertNotEquals(a.getState(), childA.getState());
+        for (int i = 0; i < 1000; i++) {
+            int value = a.nextInt(14);
+            assertTrue(value >= 0 && value < 14);
+        }
+    }
+
+    @Test
+    void shouldPlayBatchesOfGamesInParallelAndReproducibly() {
+        BatchSimulator simulator = new BatchSimulator(LevelTemplate.forLevel(2), "VANILLA");
+        GameAgent agent = ScriptedAgent.parse("ICE LEFT LEFT UP UP ICE RIGHT WAIT DOWN");
+        ConcurrentLinkedQueue<GameResult> results = new ConcurrentLinkedQueue<>();
+
+        BatchStatistics statistics = simulator.run(40, 99L, 400, agent, results::add);
+        assertEquals(40, statistics.getGames());
+        assertEquals(40, results.size(), "Cada partida debe entregar su resultado");
+        assertTrue(statistics.getGamesPerSecond() > 0);
+
+        long ticks = 0;
+        long score = 0;
+        boolean[] seen = new boolean[40];
+        for (GameResult result : results) {
+            seen[result.getIndex()] = true;
+            ticks += result.getTicks();
+            score += result.getScore();
+            assertTrue(result.getTicks() <= 400);
+            assertTrue(result.isLost() || result.isWon() || result.getTicks() == 400);
+        }
+        for (boolean game : seen) {
+            assertTrue(game);
+        }
+        assertEquals(ticks, statistics.getTicks());
+        assertEquals(score, statistics.getTotalScore());
+        assertEquals(statistics.getGames(), statistics.getWins() + statistics.getLosses()
+                + results.stream().filter(r -> !r.isWon() && !r.isLost()).count());
+
+        // A game only depends on its index and the batch seed
+        GameResult replay = simulator.play(7, 99L, 400, agent);
+        GameResult original = results.stream().filter(r -> r.getIndex() == 7).findFirst().get();
+        assertEquals(original.getSeed(), replay.getSeed());
+        assertEquals(original.getTicks(), replay.getTicks());
+        assertEquals(original.getScore(), replay.getScore());
+        assertEquals(original.isLost(), replay.isLost());
+    }
+
+    @Test
+    void shouldUpdateTheGameOnItsOwnThread() throws InterruptedException {
+        GameRunner runner = new GameRunner(game, 5);
+        CountDownLatch moved = new CountDownLatch(1);
+        int startX = getPlayerX();
+        runner.start();
+        assertTrue(runner.isRunning());
+
+        runner.submit(g -> g.movePlayer("RIGHT"));
+        runner.submit(g -> moved.countDown());
+        assertTrue(moved.await(5, TimeUnit.SECONDS), "Las acciones deben ejecutarse en el hilo de simulación");
+        synchronized (game) {
+            assertEquals(startX + 1, getPlayerX(), "El movimiento enviado debe aplicarse");
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (game) {
+                if (game.getTickCount() >= 3) {
+                    break;
+                }
+            }
+            Thread.sleep(5);
+        }
+        runner.stop();
+        assertFalse(runner.isRunning());
+        long ticks = game.getTickCount();
+        assertTrue(ticks >= 3, "El hilo de simulación debe actualizar el juego sin el hilo de la interfaz");
+        Thread.sleep(30);
+        assertEquals(ticks, game.getTickCount(), "El juego no debe actualizarse después de parar");
+    }
+
+    @Test
+    void shouldApplyQueuedCommandsInOrderAtTheNextTick() throws InterruptedException {
+        int startX = getPlayerX();
+        assertTrue(game.getInput().move(Board.RIGHT));
+        assertEquals(startX, getPlayerX(), "Los comandos esperan al siguiente tick");
+        game.update();
+        assertEquals(startX + 1, getPlayerX(), "El comando debe aplicarse al inicio del tick");
+        assertEquals(0, game.getInput().size());
+
+        InputQueue small = new InputQueue(3);
+        assertEquals(4, small.getCapacity(), "La capacidad se redondea a una potencia de dos");
+        for (int i = 0; i < 4; i++) {
+            assertTrue(small.pause());
+        }
+        assertFalse(small.pause(), "Una cola llena debe rechazar el comando");
+        assertEquals(4, small.drainTo(game));
+        assertTrue(small.pause(), "Los huecos aplicados deben reutilizarse");
+
+        // Several senders at the same time, every command is applied exactly once
+        InputQueue shared = new InputQueue(4096);
+        Thread[] senders = new Thread[4];
+        for (int t = 0; t < senders.length; t++) {
+            senders[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    assertTrue(shared.pause());
+                }
+            });
+            senders[t].start();
+        }
+        for (Thread sender : senders) {
+            sender.join();
+        }
+        boolean paused = game.isPaused();
+        assertEquals(4000, shared.drainTo(game));
+        assertEquals(paused, game.isPaused(), "Un número par de pausas deja el juego igual");
+    }
+
+    @Test
+    void shouldPublishFrameSnapshotsThroughATripleBuffer() throws InterruptedException {
+        FrameBuffer frames = new FrameBuffer();
+        assertFalse(frames.hasNewFrame());
+        frames.publish(game);
+        assertTrue(frames.hasNewFrame());
+
+        FrameSnapshot frame = frames.acquire();
+        Board board = game.getBoard();
+        assertEquals(board.getWidth(), frame.getWidth());
+        assertEquals(board.getHeight(), frame.getHeight());
+        assertEquals(getPlayerX(), frame.getPlayerX());
+        assertEquals(game.getEnemies().size(), frame.getEnemyCount());
+        assertEquals(game.getFruits().size(), frame.getFruitCount());
+        assertEquals(game.getEnemies().get(0).getPosition().getX(), frame.getEnemyX(0));
+        for (int y = 0; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                assertEquals(board.hasWall(x, y), (frame.getCell(x, y) & FrameSnapshot.WALL) != 0);
+                assertEquals(board.hasIceBlock(x, y), (frame.getCell(x, y) & FrameSnapshot.ICE) != 0);
+            }
+        }
+
+        // The acquired frame doesn't change while the game goes on
+        int playerX = frame.getPlayerX();
+        game.movePlayer("RIGHT");
+        frames.publish(game);
+        frames.publish(game);
+        assertEquals(playerX, frame.getPlayerX(), "El frame adquirido no debe cambiar");
+        assertEquals(playerX + 1, frames.acquire().getPlayerX(), "Se debe recibir el frame más reciente");
+        assertSame(frames.acquire(), frames.acquire(), "Sin frames nuevos se repite el último");
+
+        // A renderer on another thread only sees complete frames in order
+        Thread simulation = new Thread(() -> {
+            for (int i = 0; i < 20000; i++) {
+                game.update();
+                frames.publish(game);
+            }
+        });
+        simulation.start();
+        long lastTick = -1;
+        while (simulation.isAlive() || frames.hasNewFrame()) {
+            FrameSnapshot current = frames.acquire();
+            assertTrue(current.getTick() >= lastTick, "Los frames deben llegar en orden");
+            assertEquals(board.getWidth(), current.getWidth());
+            lastTick = current.getTick();
+        }
+        simulation.join();
+        assertEquals(game.getTickCount(), frames.acquire().getTick());
+    }
+
+    @Test
+    void shouldRunFixedStepsWithACatchUpLimit() {
+        List<Long> steps = new ArrayList<>();
+        int[] renders = new int[1];
+        FixedStepLoop loop = new FixedStepLoop(10, 3, steps::add, () -> renders[0]++);
+        loop.start(1000);
+
+        assertEquals(0, loop.advance(1005), "Medio paso no debe ejecutar nada");
+        assertEquals(0, renders[0], "Sin pasos no se debe renderizar");
+        assertEquals(0.5, loop.getInterpolation(), 1e-9);
+        assertEquals(5, loop.getNanosUntilNextStep());
+
+        assertEquals(2, loop.advance(1027), "El acumulador debe conservar el tiempo sobrante");
+        assertEquals(1, renders[0], "Se renderiza una vez por iteración");
+        assertEquals(Arrays.asList(0L, 1L), steps);
+
+        // A stall only runs the catch-up limit and drops the rest
+        assertEquals(3, loop.advance(1500));
+        assertEquals(5, steps.size());
+        assertEquals(45, loop.getDroppedSteps(), "Los pasos perdidos no deben ejecutarse en ráfaga");
+        assertTrue(loop.getNanosUntilNextStep() > 0 && loop.getNanosUntilNextStep() <= 10);
+
+        // Headless game: one update every stepsPerUpdate steps
+        GameRunner runner = new GameRunner(game);
+        assertEquals(Math.round((double) Game.UPDATE_INTERVAL / GameRunner.INPUT_INTERVAL), runner.getStepsPerUpdate());
+    }
+
+    @Test
+    void shouldStreamGameEventsToIndependentCursors() {
+        EventStream stream = game.getEvents();
+        EventCursor hud = stream.subscribe();
+        EventCursor replay = stream.subscribe();
+
+        game.movePlayer("UP");
+        game.handleIceBlock();
+        game.handleIceBlock();
+        game.togglePause();
+
+        assertTrue(hud.next());
+        assertEquals(EventStream.ICE_CREATED, hud.getType());
+        int width = game.getBoard().getWidth();
+        assertEquals((getPlayerY() - 1) * width + getPlayerX(), hud.getCell(), "El evento debe indicar la primera casilla");
+        assertTrue(hud.getValue() > 0);
+        assertTrue(hud.next());
+        assertEquals(EventStream.ICE_DESTROYED, hud.getType());
+        assertTrue(hud.next());
+        assertEquals(EventStream.PAUSE_TOGGLED, hud.getType());
+        assertEquals(1, hud.getValue());
+        assertFalse(hud.next(), "No debe haber más eventos");
+
+        assertEquals(3, replay.getPending(), "Cada cursor lee a su ritmo");
+        game.reset();
+        int count = 0;
+        while (replay.next()) {
+            count++;
+        }
+        assertEquals(EventStream.GAME_RESET, replay.getType());
+        assertTrue(count >= 4);
+
+        // A cursor that falls behind loses the oldest events and counts them
+        EventStream small = new EventStream(8);
+        EventCursor slow = small.subscribe();
+        for (int i = 0; i < 20; i++) {
+            small.emit(EventStream.FRUIT_COLLECTED, i, 100);
+        }
+        assertTrue(slow.next());
+        assertEquals(12, slow.getCell(), "Debe continuar por el evento más antiguo que queda");
+        assertEquals(12, slow.getLost());
+        assertEquals(7, slow.getPending());
+    }
+
+    @Test
+    void shouldKeepRemainingFruitsInACompactActiveSet() {
+        int[][] layout = {
+            {1, 1, 1, 1, 1, 1},
+            {1, 3, 5, 6, 5, 1},
+            {1, 1, 1, 1, 1, 1}
+        };
+        Game game = new Game(LevelMap.fromMatrix(1, layout), "VANILLA");
+        List<Fruit> fruits = game.getFruits();
+        Fruit first = fruits.get(0);
+        assertEquals(3, game.getRemainingFruits());
+
+        game.movePlayer("RIGHT");
+        assertEquals(2, game.getRemainingFruits(), "La fruta recogida debe salir del conjunto activo");
+        assertSame(first, fruits.get(0), "La lista conserva el orden original");
+        assertEquals(3, fruits.size());
+
+        FrameBuffer frames = new FrameBuffer();
+        frames.publish(game);
+        assertEquals(2, frames.acquire().getFruitCount(), "El frame solo incluye las frutas restantes");
+
+        // Fruits collected or added from outside the game are noticed
+        fruits.get(2).collect();
+        assertEquals(1, game.getRemainingFruits());
+        fruits.add(new Banana(1, 1));
+        assertEquals(2, game.getRemainingFruits(), "Los cambios de la lista reconstruyen el conjunto");
+        fruits.remove(3);
+
+        game.movePlayer("RIGHT");
+        assertEquals(0, game.getRemainingFruits());
+        assertTrue(game.isGameWon(), "Sin frutas restantes el juego está ganado");
+
+        game.reset();
+        assertEquals(3, game.getRemainingFruits(), "El reinicio devuelve todas las frutas");
+        assertFalse(game.isGameWon());
+    }
+
+    @Test
+    void shouldFireEntityCountdownsFromATimerWheel() {
+        TimerWheel wheel = new TimerWheel(8);
+        List<Integer> fired = new ArrayList<>();
+        wheel.schedule(3, 30);
+        wheel.schedule(11, 110); // more than one turn of the wheel
+        long cancelled = wheel.schedule(3, 31);
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled), "Un temporizador solo se cancela una vez");
+
+        for (int tick = 1; tick <= 12; tick++) {
+            wheel.advance(payload -> {
+                fired.add(payload);
+                if (payload == 30) {
+                    wheel.schedule(8, 38); // same slot, next turn
+                }
+            });
+            if (tick == 3) {
+                assertEquals(Arrays.asList(30), fired, "Solo debe dispararse el temporizador no cancelado");
+            }
+        }
+        assertEquals(3, fired.size(), "Los dos temporizadores del tick 11 deben dispararse");
+        assertTrue(fired.containsAll(Arrays.asList(30, 38, 110)));
+        assertEquals(0, wheel.size());
+
+        // Campfires reignite 20 updates after they are put out
+        int[][] layout = {
+            {1, 1, 1, 1, 1, 1},
+            {1, 3, 10, 0, 5, 1},
+            {1, 1, 1, 1, 1, 1}
+        };
+        Game game = new Game(LevelMap.fromMatrix(3, layout), "VANILLA");
+        game.movePlayer("RIGHT");
+        assertTrue(game.isGameLost(), "La fogata encendida debe eliminar al jugador");
+
+        game.reset();
+        game.getPlayer().setDirection("RIGHT");
+        game.refreshStateHash();
+        game.handleIceBlock();
+        Board board = game.getBoard();
+        assertFalse(board.hasCampfireOn(2, 1), "El hielo debe apagar la fogata");
+        Campfire fire = board.getCampfires().get(0);
+        for (int i = 1; i < fire.getTurnOnTime(); i++) {
+            game.update();
+            assertFalse(board.hasCampfireOn(2, 1), "La fogata sigue apagada en la actualización " + i);
+        }
+        game.update();
+        assertTrue(board.hasCampfireOn(2, 1), "La fogata debe volver a encenderse");
+        assertEquals(game.computeStateHash(), game.stateHash());
+    }
+
+    @Test
+    void shouldFastForwardLikeSingleUpdates() {
+        Game jumped = new Game(1, "VANILLA", 42L);
+        Game stepped = new Game(1, "VANILLA", 42L);
+        jumped.setClock(new TickClock());
+        stepped.setClock(new TickClock());
+
+        for (int segment : new int[] {1, 37, 150, 400}) {
+            jumped.advance(segment);
+            for (int i = 0; i < segment; i++) {
+                stepped.update();
+            }
+            assertEquals(stepped.getTickCount(), jumped.getTickCount());
+            assertEquals(stepped.stateHash(), jumped.stateHash(), "Saltar ticks debe dejar el mismo estado");
+            assertEquals(jumped.computeStateHash(), jumped.stateHash());
+            assertEquals(stepped.isGameLost(), jumped.isGameLost());
+            for (int i = 0; i < stepped.getEnemies().size(); i++) {
+                Position expected = stepped.getEnemies().get(i).getPosition();
+                Position actual = jumped.getEnemies().get(i).getPosition();
+                assertEquals(expected.getX(), actual.getX());
+                assertEquals(expected.getY(), actual.getY());
+            }
+        }
+        assertTrue(jumped.isGameLost(), "El tiempo limite debe acabar el juego");
+    }
+
+    @Test
+    void shouldUpdateAndMoveWithoutAllocating() {
+        int[][] layout = {
+            {1, 1, 1, 1, 1, 1, 1},
+            {1, 3, 0, 0, 0, 0, 1},
+            {1, 1, 1, 1, 1, 1, 1},
+            {1, 4, 0, 0, 0, 0, 1},
+            {1, 0, 0, 0, 0, 0, 1},
+            {1, 1, 1, 1, 1, 1, 1},
+            {1, 5, 1, 1, 1, 1, 1},
+            {1, 1, 1, 1, 1, 1, 1}
+        };
+        Game game = new Game(LevelMap.fromMatrix(1, layout), "VANILLA");
+        game.setClock(new TickClock(1));
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < 20000; i++) {
+            playMoveCycle(game, i);
+        }
+        // The JIT can still allocate a few bytes while it compiles, so the best of a few windows
+        // is taken: an allocation in the cycle itself would show up in all of them
+        long allocated = Long.MAX_VALUE;
+        for (int window = 0; window < 5 && allocated > 0; window++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 2000; i++) {
+                playMoveCycle(game, i);
+            }
+            allocated = Math.min(allocated, threads.getThreadAllocatedBytes(thread) - before);
+        }
+
+        assertFalse(game.isGameLost());
+        assertEquals(0, allocated, "Un ciclo de movimiento y actualizacion no debe reservar memoria");
+    }
+
+    private void playMoveCycle(Game game, int i) {
+        game.movePlayer((i & 4) == 0 ? Board.RIGHT : Board.LEFT);
+        game.getInput().move(Board.DOWN);
+        game.update();
+    }
+
+    @Test
+    void shouldKeepEntityViewsValidWhenTheListsChange() {
+        Game game = new Game(1, "VANILLA", 7L);
+        game.setClock(new TickClock());
+        ArrayList<Enemy> enemies = game.getEnemies();
+        Enemy removed = enemies.get(0);
+        Enemy kept = enemies.get(1);
+        game.update();
+        int removedX = removed.getPosition().getX();
+        int removedY = removed.getPosition().getY();
+
+        enemies.remove(0);
+        for (int i = 0; i < 5; i++) {
+            game.update();
+        }
+        assertEquals(removedX, removed.getPosition().getX(), "El enemigo quitado no se mueve con el juego");
+        assertEquals(removedY, removed.getPosition().getY());
+
+        // The views of the game follow the store: moving one moves what the game sees
+        kept.move(removed.getPosition().getX(), removed.getPosition().getY());
+        enemies.add(removed);
+        game.refreshStateHash();
+        game.update();
+        assertEquals(game.computeStateHash(), game.stateHash());
+        assertSame(removed, enemies.get(1));
+        assertEquals(2, enemies.size());
+    }
+
+    @Test
+    void shouldCompareEntitiesByPackedPosition() {
+        int packed = Position.pack(3, 5);
+        assertEquals(3, Position.unpackX(packed));
+        assertEquals(5, Position.unpackY(packed));
+        assertEquals(packed, new Position(3, 5).pack(), "Un Position empaqueta igual que Position.pack");
+
+        Game game = new Game(1, "VANILLA", 7L);
+        Board board = game.getBoard();
+        assertFalse(board.isValidPosition(Board.neighbor(Position.pack(0, 0), Board.LEFT)), "Salir por la izquierda no es válido");
+        assertFalse(board.isValidPosition(Board.neighbor(Position.pack(0, 0), Board.UP)), "Salir por arriba no es válido");
+
+        Enemy enemy = game.getEnemies().get(0);
+        Position position = enemy.getPosition();
+        assertEquals(Position.pack(position.getX(), position.getY()), enemy.getPackedPosition());
+        assertEquals(board.canMoveTo(position.getX(), position.getY()), board.canMoveTo(enemy.getPackedPosition()));
+
+        position.setX(position.getX() + 1);
+        assertEquals(position.pack(), enemy.getPackedPosition(), "La vista Position escribe en la posición empaquetada");
+        assertSame(position, enemy.getPosition());
+    }
+
+    @Test
+    void shouldUpdateEveryKindInItsOwnLoop() {
+        Game game = new Game(3, "VANILLA", 7L);
+        game.setClock(new TickClock());
+        int[] updates = new int[1];
+        Fruit star = new Fruit(1, 1, "STAR", 50) {
+            @Override
+            public void update(Board board) {
+                updates[0]++;
+            }
+        };
+        game.getFruits().add(star);
+        Enemy troll = new Troll(1, 1);
+        game.getEnemies().add(troll);
+        game.refreshStateHash();
+
+        for (int i = 0; i < 3; i++) {
+            game.update();
+        }
+        assertEquals(3, updates[0], "Una fruta de otro tipo se actualiza con su propio update");
+        assertNotEquals(Position.pack(1, 1), troll.getPackedPosition(), "El troll añadido se mueve en el bucle de los trolls");
+        assertEquals(game.computeStateHash(), game.stateHash());
+
+        star.collect();
+        game.update();
+        assertEquals(3, updates[0], "Una fruta recogida no se actualiza");
+    }
+
+    @Test
+    void shouldStopIceLinesAtWallsAddedOnLargeBoards() {
+        Board board = new Board(3000, 3000);
+        board.addWall(1500, 1000);
+        board.addWall(1000, 1500);
+        board.addWall(1000, 2990);
+
+        board.createIceBlocks(1000, 1000, Board.RIGHT);
+        assertEquals(500, board.getIceBlocks().size(), "La línea de hielo se detiene en el muro añadido");
+        board.clearAllIceBlocks();
+        board.createIceBlocks(1000, 1000, Board.DOWN);
+        assertEquals(500, board.getIceBlocks().size(), "La línea hacia abajo se detiene en el muro de la columna");
+        board.clearAllIceBlocks();
+        board.createIceBlocks(1000, 1600, Board.DOWN);
+        assertEquals(1390, board.getIceBlocks().size());
+        board.clearAllIceBlocks();
+        board.createIceBlocks(1000, 2000, Board.UP);
+        assertEquals(500, board.getIceBlocks().size(), "La línea hacia arriba se detiene en el muro");
+        board.clearAllIceBlocks();
+        board.createIceBlocks(1499, 1000, Board.LEFT);
+        assertEquals(1500, board.getIceBlocks().size(), "Sin muros la línea llega al borde");
+    }
+
+    @Test
+    void shouldNotReportCampfiresRelitByAReset() {
+        int[][] layout = {
+            {1, 1, 1, 1, 1, 1},
+            {1, 3, 10, 0, 5, 1},
+            {1, 1, 1, 1, 1, 1}
+        };
+        Game game = new Game(LevelMap.fromMatrix(3, layout), "VANILLA");
+        game.getPlayer().setDirection("RIGHT");
+        game.refreshStateHash();
+        game.handleIceBlock();
+        assertFalse(game.getBoard().hasCampfireOn(2, 1));
+
+        EventCursor cursor = game.getEvents().subscribe();
+        game.reset();
+        assertTrue(game.getBoard().hasCampfireOn(2, 1), "El reinicio vuelve a encender la fogata");
+        assertTrue(cursor.next());
+        assertEquals(EventStream.GAME_RESET, cursor.getType(), "El reinicio solo publica GAME_RESET");
+        assertFalse(cursor.next());
+        assertEquals(game.computeStateHash(), game.stateHash());
+    }
+
+    @Test
+    void shouldPublishFruitsInTheLevelOrder() {
+        Game game = new Game(1, "VANILLA", 7L);
+        List<Fruit> fruits = game.getFruits();
+        fruits.get(0).collect();
+        fruits.get(3).collect();
+        FrameBuffer frames = new FrameBuffer();
+        frames.publish(game);
+        FrameSnapshot frame = frames.acquire();
+        assertEquals(fruits.size() - 2, frame.getFruitCount(), "Las frutas recogidas no se dibujan");
+        int n = 0;
+        for (Fruit fruit : fruits) {
+            if (!fruit.isCollected()) {
+                assertEquals(fruit.getPosition().getX(), frame.getFruitX(n), "Las frutas deben seguir el orden del nivel");
+                assertEquals(fruit.getPosition().getY(), frame.getFruitY(n), "Las frutas deben seguir el orden del nivel");
+                assertEquals(fruit.getKind(), frame.getFruitKind(n), "Las frutas deben seguir el orden del nivel");
+                n++;
+            }
+        }
+    }
+
+    @Test
+    void shouldPublishFramesWithCampfiresOutsideTheBoard() {
+        Game game = new Game(1, "VANILLA", 7L);
+        Board board = game.getBoard();
+        board.addCampfire(2, board.getHeight() + 3);
+        board.addCampfire(board.getWidth() + 3, 2);
+        FrameBuffer frames = new FrameBuffer();
+        frames.publish(game);
+        FrameSnapshot frame = frames.acquire();
+        assertEquals(board.getWidth(), frame.getWidth(), "La fogata fuera del tablero no debe romper la publicación");
+        assertEquals(0, frame.getCell(3, 3) & FrameSnapshot.CAMPFIRE, "La fogata fuera del tablero no marca otra casilla");
+    }
+
+    @Test
+    void shouldKeepCherryTimersWhenTheFruitListChanges() {
+        int[][] layout = {
+            {1, 1, 1, 1, 1, 1, 1},
+            {1, 3, 0, 0, 0, 0, 1},
+            {1, 0, 5, 0, 8, 0, 1},
+            {1, 0, 0, 0, 0, 0, 1},
+            {1, 0, 0, 0, 0, 0, 1},
+            {1, 1, 1, 1, 1, 1, 1}
+        };
+        // A fixed seed, so no teleport lands on the cell the cherry is already on
+        Game game = new Game(LevelTemplate.from(LevelMap.fromMatrix(1, layout)), "VANILLA", 7, 6, 42L);
+        game.setClock(new TickClock());
+        List<Fruit> fruits = game.getFruits();
+        Fruit banana = fruits.get(0);
+        Cherry cherry = (Cherry) fruits.get(1);
+        int interval = cherry.getTeleportInterval();
+
+        // The cherry moves to index 0, its pending timer must still find it
+        fruits.remove(0);
+        Cherry added = new Cherry(5, 4);
+        fruits.add(added);
+        game.refreshStateHash();
+        for (int i = 0; i < interval - 1; i++) {
+            game.update();
+        }
+        int cherryBefore = cherry.getPackedPosition();
+        int addedBefore = added.getPackedPosition();
+        game.update();
+        assertNotEquals(cherryBefore, cherry.getPackedPosition(), "La cereza teletransporta aunque cambie su índice");
+        assertNotEquals(addedBefore, added.getPackedPosition(), "Una cereza añadida después también teletransporta");
+        assertEquals(Position.pack(2, 2), banana.getPackedPosition(), "La fruta quitada no recibe el temporizador");
+        assertEquals(game.computeStateHash(), game.stateHash());
+    }
+
+    @Test
+    void shouldFastForwardOnlyWhatCanBePlanned() throws Exception {
+        // With the real clock the time limit is checked on every update
+        Game late = new Game(1, "VANILLA", 42L);
+        late.getEnemies().clear();
+        setPrivateField(late, "startTime", System.currentTimeMillis() - 200_000L);
+        late.advance(5);
+        assertTrue(late.isGameLost(), "advance debe terminar la partida sin tiempo como update");
+
+        // Enemies that only look like trolls are not planned as trolls
+        Game game = new Game(1, "VANILLA", 42L);
+        game.setClock(new TickClock());
+        int[] moves = new int[1];
+        game.getEnemies().clear();
+        game.getEnemies().add(new Enemy(1, 1, "TROLL") {
+            @Override
+            public void updatePosition(Board board) {
+                moves[0]++;
+            }
+        });
+        game.refreshStateHash();
+        game.advance(30);
+        assertEquals(game.computeStateHash(), game.stateHash(), "Un enemigo de tipo TROLL que no es un Troll avanza paso a paso");
+        assertEquals(30, moves[0], "Un enemigo de tipo TROLL que no es un Troll debe moverse con su propio método");
+    }
+
+    @Test
+    void shouldDetachRemovedEntitiesWithoutAStore() throws Exception {
+        Game game = new Game(1, "VANILLA", 42L);
+        game.setClock(new TickClock());
+        Field storeField = Entity.class.getDeclaredField("store");
+        storeField.setAccessible(true);
+        game.getEnemies().clear();
+        Troll troll = new Troll(1, 1);
+        Troll subclass = new Troll(1, 2) {
+        };
+        Enemy lookalike = new Enemy(1, 3, "TROLL") {
+            @Override
+            public void updatePosition(Board board) {
+            }
+        };
+        game.getEnemies().add(troll);
+        game.getEnemies().add(subclass);
+        game.getEnemies().add(lookalike);
+        game.update();
+
+        // The store only runs the troll code for the Troll class itself
+        EntityStore enemyStore = (EntityStore) getPrivateField(game, "enemyStore");
+        assertEquals(Enemy.TROLL, enemyStore.getKind(0), "Un Troll debe usar el código de los trolls");
+        assertEquals(-1, enemyStore.getKind(1), "Una subclase de Troll debe usar sus propios métodos");
+        assertEquals(-1, enemyStore.getKind(2), "Un enemigo de tipo TROLL que no es un Troll debe usar sus propios métodos");
+
+        // A removed enemy keeps its values without a store of its own
+        int x = troll.getPosition().getX();
+        int y = troll.getPosition().getY();
+        game.getEnemies().remove(troll);
+        game.update();
+        assertNull(storeField.get(troll), "Un enemigo quitado no debe quedarse con un almacén");
+        assertEquals(x, troll.getPosition().getX(), "Un enemigo quitado debe mantener su posición");
+        assertEquals(y, troll.getPosition().getY(), "Un enemigo quitado debe mantener su posición");
+        troll.move(5, 6);
+        assertEquals(5, troll.getPosition().getX(), "Un enemigo quitado debe poder moverse");
+        assertEquals(6, troll.getPosition().getY(), "Un enemigo quitado debe poder moverse");
+        troll.reset(5, 6);
+        Troll alone = new Troll(5, 6);
+        for (int i = 0; i < 6; i++) {
+            troll.updatePosition(game.getBoard());
+            alone.updatePosition(game.getBoard());
+            assertEquals(alone.getPosition().getX(), troll.getPosition().getX(), "Un enemigo quitado debe moverse como uno nuevo");
+            assertEquals(alone.getPosition().getY(), troll.getPosition().getY(), "Un enemigo quitado debe moverse como uno nuevo");
+        }
+        assertNull(storeField.get(troll), "Mover un enemigo quitado no debe darle un almacén");
+
+        // It moves its values back when it is added again
+        game.getEnemies().add(troll);
+        game.refreshStateHash();
+        game.update();
+        assertSame(enemyStore, storeField.get(troll), "Un enemigo añadido otra vez debe volver al almacén");
+        assertEquals(game.computeStateHash(), game.stateHash(), "El hash debe seguir siendo coherente");
+    }
+
+    // A game with mixed enemies; as anonymous subclasses they move one by one through updatePosition
+    private Game mixedEnemiesGame(boolean ownMethods) throws Exception {
+        Game game = new Game(1, "VANILLA", 42L);
+        game.setClock(new TickClock());
+        Board board = game.getBoard();
+        // The squid breaks the ice on (7,3) on its way down to the player, the troll wants to walk into that cell
+        board.addIceBlock(7, 3);
+        game.getEnemies().clear();
+        game.getEnemies().add(ownMethods ? new Pot(2, 2) { } : new Pot(2, 2));
+        OrangeSquid squid = ownMethods ? new OrangeSquid(7, 2) { } : new OrangeSquid(7, 2);
+        squid.setBoard(board);
+        game.getEnemies().add(squid);
+        game.getEnemies().add(ownMethods ? new Troll(6, 3) { } : new Troll(6, 3));
+        game.refreshStateHash();
+        return game;
+    }
+
+    @Test
+    void shouldUpdateMixedEnemiesInListOrder() throws Exception {
+        Game plain = mixedEnemiesGame(false);
+        Game own = mixedEnemiesGame(true);
+        for (int tick = 0; tick < 40; tick++) {
+            plain.update();
+            own.update();
+            for (int i = 0; i < plain.getEnemies().size(); i++) {
+                Position expected = own.getEnemies().get(i).getPosition();
+                Position actual = plain.getEnemies().get(i).getPosition();
+                assertEquals(expected.getX(), actual.getX(), "Los enemigos deben moverse en el orden de la lista, tick " + tick);
+                assertEquals(expected.getY(), actual.getY(), "Los enemigos deben moverse en el orden de la lista, tick " + tick);
+            }
+            assertEquals(own.getBoard().getIceBlocks().size(), plain.getBoard().getIceBlocks().size(),
+                "Los calamares deben romper el hielo en el orden de la lista, tick " + tick);
+        }
+        assertEquals(plain.computeStateHash(), plain.stateHash(), "El hash debe seguir siendo coherente");
+    }
+
+    @Test
+    void shouldRejectSizesThatCannotBePacked() {
+        assertThrows(IllegalArgumentException.class, () -> new Board(0x10000, 1),
+            "Un tablero más ancho de lo que cabe en una posición empaquetada debe rechazarse");
+        assertThrows(IllegalArgumentException.class, () -> new Board(1, 0x10000),
+            "Un tablero más alto de lo que cabe en una posición empaquetada debe rechazarse");
+        ByteBuffer data = ByteBuffer.allocate(LevelMap.HEADER_SIZE + 0x10000);
+        data.putInt(LevelMap.MAGIC);
+        data.putShort(LevelMap.VERSION);
+        data.putShort((short) 1);
+        data.putInt(0x10000);
+        data.putInt(1);
+        data.clear();
+        assertThrows(BadDopoCreamException.class, () -> new LevelMap(data),
+            "Un nivel más ancho de lo que cabe en una posición empaquetada debe rechazarse");
+
+        // Positions compare their coordinates, not their packed values
+        assertFalse(new Position(0x10000, 0).equals(new Position(0, 0)), "Posiciones distintas no deben ser iguales");
+        assertTrue(new Position(3, 4).equals(new Position(3, 4)), "Posiciones con las mismas coordenadas deben ser iguales");
+    }
+
+    @Test
+    void shouldKeepThePlayerPositionPacked() {
+        IceCream player = new IceCream(3, 4, "VANILLA");
+        Position view = player.getPosition();
+        assertEquals(Position.pack(3, 4), player.getPackedPosition(), "La posición empaquetada debe ser la inicial");
+        player.move(5, 6);
+        assertEquals(Position.pack(5, 6), player.getPackedPosition(), "Mover debe cambiar la posición empaquetada");
+        assertEquals(5, view.getX(), "La vista de la posición debe seguir al helado");
+        assertEquals(6, view.getY(), "La vista de la posición debe seguir al helado");
+        view.setX(7);
+        assertEquals(Position.pack(7, 6), player.getPackedPosition(), "Cambiar la vista debe mover al helado");
+        player.reset(1, 2);
+        assertSame(view, player.getPosition(), "La vista de la posición debe crearse una sola vez");
+        assertEquals(Position.pack(1, 2), player.getPackedPosition(), "Reiniciar debe volver a la posición dada");
+    }
 }
\ No newline at end of file